@@ -0,0 +1,66 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dao.TrainingDao;
+import com.example.gym.model.Training;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.gym.benchmark.StorageBenchmark.randomId;
+
+/**
+ * {@code AbstractDao.save} for new and existing entities, and the indexed
+ * finders of {@link TrainingDao}.
+ * <p>
+ * {@code saveNew} grows the training partition while it runs; with the default
+ * iteration times that stays well within the configured heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class DaoBenchmark {
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int size;
+
+    private GymStack stack;
+    private TrainingDao trainingDao;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stack = new GymStack().populate(size);
+        trainingDao = stack.trainingDao;
+    }
+
+    @Benchmark
+    public Training saveNew() {
+        Training training = stack.training(randomId(stack.trainings), null);
+        training.setTrainingId(null);
+        return trainingDao.save(training);
+    }
+
+    @Benchmark
+    public Training saveExisting() {
+        return trainingDao.save(stack.training(randomId(stack.trainings), null));
+    }
+
+    @Benchmark
+    public List<Training> findByTraineeId() {
+        return trainingDao.findByTraineeId(randomId(stack.trainees));
+    }
+}
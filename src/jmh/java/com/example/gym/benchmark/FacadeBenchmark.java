@@ -0,0 +1,74 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.facade.GymFacade;
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Training;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.example.gym.benchmark.StorageBenchmark.randomId;
+
+/**
+ * Round trips through {@link GymFacade}, the entry point the rest of the
+ * application uses: create-then-read for trainees and trainings, and plain reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class FacadeBenchmark {
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int size;
+
+    private GymStack stack;
+    private GymFacade facade;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stack = new GymStack().populate(size);
+        facade = stack.facade;
+    }
+
+    @Benchmark
+    public Trainee traineeRoundTrip() {
+        Trainee created = facade.createTrainee(ServiceBenchmark.newTrainee());
+        return facade.selectTrainee(created.getUserId());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Trainee traineeRoundTripContended() {
+        Trainee created = facade.createTrainee(ServiceBenchmark.newTrainee());
+        return facade.selectTrainee(created.getUserId());
+    }
+
+    @Benchmark
+    public Training trainingRoundTrip() {
+        Training training = stack.training(randomId(stack.trainings), null);
+        training.setTrainingId(null);
+        Training created = facade.createTraining(training);
+        return facade.selectTraining(created.getTrainingId());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Training selectTrainingContended() {
+        return facade.selectTraining(randomId(stack.trainings));
+    }
+}
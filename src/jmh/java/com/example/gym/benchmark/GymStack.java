@@ -0,0 +1,125 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.dao.TraineeDao;
+import com.example.gym.dao.TrainerDao;
+import com.example.gym.dao.TrainingDao;
+import com.example.gym.facade.GymFacade;
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Trainer;
+import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import com.example.gym.service.TraineeService;
+import com.example.gym.service.TrainerService;
+import com.example.gym.service.TrainingService;
+import com.example.gym.storage.InMemoryStorage;
+import com.example.gym.utils.UserCredentialsGenerator;
+
+import java.time.LocalDate;
+
+/**
+ * The storage, DAO, service and facade layers wired by hand, without a Spring
+ * context, plus a deterministic dataset generator.
+ * <p>
+ * A dataset of {@code size} entities is split into 10% trainees, 1% trainers
+ * and the rest trainings, which is roughly the shape of production data.
+ */
+final class GymStack {
+
+    static final String[] FIRST_NAMES = {"John", "Jane", "Anna", "Ivan", "Maria", "Peter", "Olga", "Alex"};
+    static final String[] LAST_NAMES = {"Smith", "Doe", "Ivanova", "Petrov", "Brown", "Garcia"};
+    static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    static final int DAYS = 5 * 365;
+
+    final InMemoryStorage storage = new InMemoryStorage();
+    final TraineeDao traineeDao = new TraineeDao();
+    final TrainerDao trainerDao = new TrainerDao();
+    final TrainingDao trainingDao = new TrainingDao();
+    final TraineeService traineeService = new TraineeService();
+    final TrainerService trainerService = new TrainerService();
+    final TrainingService trainingService = new TrainingService();
+    final GymFacade facade;
+
+    int trainees;
+    int trainers;
+    int trainings;
+
+    GymStack() {
+        UserCredentialsGenerator credentialsGenerator = new UserCredentialsGenerator();
+        traineeDao.setStorage(storage);
+        trainerDao.setStorage(storage);
+        trainingDao.setStorage(storage);
+        traineeService.setTraineeDao(traineeDao);
+        traineeService.setCredentialsGenerator(credentialsGenerator);
+        trainerService.setTrainerDao(trainerDao);
+        trainerService.setCredentialsGenerator(credentialsGenerator);
+        trainingService.setTrainingDao(trainingDao);
+        facade = new GymFacade(traineeService, trainerService, trainingService);
+    }
+
+    GymStack populate(int size) {
+        trainees = Math.max(1, size / 10);
+        trainers = Math.max(1, size / 100);
+        trainings = Math.max(1, size - trainees - trainers);
+
+        TrainingType[] types = new TrainingType[4];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = TrainingType.builder().trainingTypeId(i + 1L).trainingTypeName("Type" + (i + 1)).build();
+            storage.put(TrainingType.class, i + 1L, types[i]);
+        }
+        for (long id = 1; id <= trainees; id++) {
+            storage.put(Trainee.class, id, trainee(id));
+        }
+        for (long id = 1; id <= trainers; id++) {
+            storage.put(Trainer.class, id, trainer(id));
+        }
+        for (long id = 1; id <= trainings; id++) {
+            storage.put(Training.class, id, training(id, types[(int) (id % types.length)]));
+        }
+        storage.initializeIdCounter(Trainee.class, (long) trainees);
+        storage.initializeIdCounter(Trainer.class, (long) trainers);
+        storage.initializeIdCounter(Training.class, (long) trainings);
+        return this;
+    }
+
+    static String username(long id) {
+        return "Member" + id + ".User";
+    }
+
+    Trainee trainee(long id) {
+        Trainee trainee = new Trainee();
+        trainee.setUserId(id);
+        trainee.setFirstName("Member" + id);
+        trainee.setLastName("User");
+        trainee.setUsername(username(id));
+        trainee.setPassword("password00");
+        trainee.setActive(id % 5 != 0);
+        trainee.setDateOfBirth(FIRST_DAY.minusYears(20).plusDays(id % 7000).toString());
+        trainee.setAddress(id + " Main St");
+        return trainee;
+    }
+
+    Trainer trainer(long id) {
+        Trainer trainer = new Trainer();
+        trainer.setUserId(id);
+        trainer.setTrainerId(id);
+        trainer.setFirstName("Coach" + id);
+        trainer.setLastName("User");
+        trainer.setUsername("Coach" + id + ".User");
+        trainer.setPassword("password00");
+        trainer.setActive(true);
+        trainer.setSpecialization("Type" + (id % 4 + 1));
+        return trainer;
+    }
+
+    Training training(long id, TrainingType type) {
+        return Training.builder()
+                .trainingId(id)
+                .traineeId(id % trainees + 1)
+                .trainerId(id % trainers + 1)
+                .trainingName("Session " + id)
+                .trainingType(type)
+                .trainingDate(FIRST_DAY.plusDays(id % DAYS).toString())
+                .trainingDuration(30 + (int) (id % 4) * 15)
+                .build();
+    }
+}
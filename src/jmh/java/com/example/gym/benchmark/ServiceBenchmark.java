@@ -0,0 +1,68 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.service.TraineeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link TraineeService#create} end to end: username generation against a
+ * small pool of common names, password generation and the DAO save.
+ * <p>
+ * The {@code contended} variant runs on every available core, where username
+ * reservation and id generation are shared between threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class ServiceBenchmark {
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int size;
+
+    private TraineeService traineeService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        traineeService = new GymStack().populate(size).traineeService;
+    }
+
+    @Benchmark
+    public Trainee createTrainee() {
+        return traineeService.create(newTrainee());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Trainee createTraineeContended() {
+        return traineeService.create(newTrainee());
+    }
+
+    static Trainee newTrainee() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Trainee trainee = new Trainee();
+        trainee.setFirstName(GymStack.FIRST_NAMES[random.nextInt(GymStack.FIRST_NAMES.length)]);
+        trainee.setLastName(GymStack.LAST_NAMES[random.nextInt(GymStack.LAST_NAMES.length)]);
+        trainee.setActive(true);
+        trainee.setDateOfBirth("1995-06-15");
+        trainee.setAddress("1 Main St");
+        return trainee;
+    }
+}
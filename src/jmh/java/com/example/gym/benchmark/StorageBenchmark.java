@@ -0,0 +1,98 @@
+package com.example.gym.benchmark;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Training;
+import com.example.gym.storage.InMemoryStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw {@link InMemoryStorage} operations against a pre-populated dataset.
+ * <p>
+ * {@code put} overwrites existing trainings so the dataset keeps its size for
+ * the whole run. {@code getByCondition} is a full partition scan and is kept
+ * next to {@code getByIndex} to show what the secondary indexes save.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx8g"})
+public class StorageBenchmark {
+
+    @Param({"10000", "100000", "1000000", "5000000"})
+    public int size;
+
+    private GymStack stack;
+    private InMemoryStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        stack = new GymStack().populate(size);
+        storage = stack.storage;
+    }
+
+    @Benchmark
+    public Optional<Training> get() {
+        return storage.get(Training.class, randomId(stack.trainings));
+    }
+
+    @Benchmark
+    public void put() {
+        long id = randomId(stack.trainings);
+        storage.put(Training.class, id, stack.training(id, null));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Long generateIdContended() {
+        return storage.generateId(Training.class);
+    }
+
+    @Benchmark
+    public List<Training> getByCondition() {
+        long traineeId = randomId(stack.trainees);
+        return storage.getByCondition(Training.class, t -> t.getTraineeId() == traineeId);
+    }
+
+    @Benchmark
+    public List<Training> getByIndex() {
+        return storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, randomId(stack.trainees));
+    }
+
+    @Benchmark
+    public List<Trainee> getActiveTraineesByCondition() {
+        return storage.getByCondition(Trainee.class, Trainee::isActive);
+    }
+
+    @Benchmark
+    public boolean existsByUsername() {
+        return storage.existsByUsername(GymStack.username(randomId(stack.trainees)));
+    }
+
+    @Benchmark
+    public boolean existsByUnknownUsername() {
+        return storage.existsByUsername("Unknown" + randomId(stack.trainees) + ".User");
+    }
+
+    static long randomId(int bound) {
+        return ThreadLocalRandom.current().nextLong(bound) + 1;
+    }
+}
@@ -1,18 +1,33 @@
 package com.example.gym.dao;
 
 import com.example.gym.exception.EntityNotFoundException;
+import com.example.gym.metrics.GymMetrics;
+import com.example.gym.query.Page;
+import com.example.gym.query.Query;
 import com.example.gym.storage.InMemoryStorage;
+import com.example.gym.storage.WriteAheadLog;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static com.example.gym.logging.LogMarkers.HOT_PATH;
 
 @Slf4j
 public abstract class AbstractDao<T, ID> implements Dao<T, ID> {
 
     protected InMemoryStorage storage;
-    private final Class<T> entityClass;
+    protected GymMetrics metrics = GymMetrics.noop();
+    private WriteAheadLog writeAheadLog;
+    protected final Class<T> entityClass;
 
     protected AbstractDao(Class<T> entityClass) {
         this.entityClass = entityClass;
@@ -23,38 +38,178 @@ public abstract class AbstractDao<T, ID> implements Dao<T, ID> {
         this.storage = storage;
     }
 
+    /**
+     * Enables durable mode: every save and delete is also appended to the
+     * write-ahead log, and only returns once the record is on disk. Each mutation
+     * is applied to storage and logged as one step under the log's per-id lock,
+     * so records of an id are logged in the order they were applied, and a
+     * snapshot taken after a log roll contains every record below the boundary.
+     * A mutation that cannot be logged is undone and fails.
+     */
+    @Autowired(required = false)
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    @Autowired(required = false)
+    public void setMetrics(GymMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     protected abstract ID getId(T entity);
     protected abstract void setId(T entity, Long id);
 
     @Override
     public T save(T entity) {
+        return metrics.timeDao(entityClass, "save", () -> doSave(entity));
+    }
+
+    private T doSave(T entity) {
         if (getId(entity) == null) {
             Long newId = storage.generateId(entityClass);
             setId(entity, newId);
         }
-        storage.put(entityClass, getId(entity), entity);
-        log.info("Saved {}: {}", entityClass.getSimpleName(), getId(entity));
+        applyPut(entity, () -> storage.put(entityClass, toKey(getId(entity)), entity));
+        log.debug(HOT_PATH, "Saved {}: {}", entityClass.getSimpleName(), getId(entity));
         return entity;
     }
 
+    /**
+     * Saves a batch in one storage call. Ids for new entities are taken from a
+     * single reserved block, so they are consecutive in list order.
+     */
+    @Override
+    public List<T> saveAll(List<T> entities) {
+        return metrics.timeDao(entityClass, "saveAll",
+                () -> doSaveAll(entities, byId -> storage.putAll(entityClass, byId)));
+    }
+
+    /**
+     * Assigns ids to the new entities and stores the batch with {@code store},
+     * logging it first when durable.
+     */
+    protected List<T> doSaveAll(List<T> entities, Consumer<Map<Long, T>> store) {
+        int newEntities = (int) entities.stream().filter(entity -> getId(entity) == null).count();
+        long nextId = newEntities == 0 ? 0 : storage.reserveIds(entityClass, newEntities);
+        Map<Long, T> byId = new LinkedHashMap<>();
+        for (T entity : entities) {
+            if (getId(entity) == null) {
+                setId(entity, nextId++);
+            }
+            byId.put(toKey(getId(entity)), entity);
+        }
+        if (writeAheadLog != null) {
+            writeAheadLog.applyAndLogPutAll(entityClass, byId, () -> store.accept(byId));
+        } else {
+            store.accept(byId);
+        }
+        log.debug(HOT_PATH, "Saved {} {} entities", byId.size(), entityClass.getSimpleName());
+        return entities;
+    }
+
     @Override
     public T findById(ID id) {
-        return storage.<T>get(entityClass, id)
-                .orElseThrow(() -> new EntityNotFoundException(entityClass.getSimpleName(), (Long) id));
+        return metrics.timeDao(entityClass, "findById", () -> storage.<T>get(entityClass, toKey(id))
+                .orElseThrow(() -> new EntityNotFoundException(entityClass.getSimpleName(), (Long) id)));
     }
 
     @Override
     public List<T> findByCondition(Predicate<T> condition) {
-        return storage.<T>getByCondition(entityClass, condition);
+        return metrics.timeDao(entityClass, "findByCondition",
+                () -> storage.<T>getByCondition(entityClass, condition));
+    }
+
+    /**
+     * Like {@link #findByCondition}, but declarative, so storage can answer it
+     * from an index instead of scanning.
+     */
+    @Override
+    public List<T> findByQuery(Query query) {
+        return metrics.timeDao(entityClass, "findByQuery", () -> storage.query(entityClass, query));
+    }
+
+    @Override
+    public Stream<T> streamByCondition(Predicate<T> condition) {
+        return storage.stream(entityClass, condition);
+    }
+
+    @Override
+    public Stream<T> streamByQuery(Query query) {
+        return storage.stream(entityClass, query);
+    }
+
+    /**
+     * Keyset pagination in id order; a null query pages through all entities.
+     */
+    @Override
+    public Page<T> findPage(Query query, Long afterId, int limit) {
+        return metrics.timeDao(entityClass, "findPage", () -> storage.page(entityClass, query, afterId, limit));
     }
 
     @Override
     public void deleteById(ID id) {
-        storage.delete(entityClass, id);
-        log.info("Deleted {} with id: {}", entityClass.getSimpleName(), id);
+        metrics.timeDao(entityClass, "deleteById", () -> doDelete(id));
+    }
+
+    private void doDelete(ID id) {
+        if (writeAheadLog != null) {
+            writeAheadLog.applyAndLogDelete(entityClass, toKey(id), () -> storage.delete(entityClass, toKey(id)));
+        } else {
+            storage.delete(entityClass, toKey(id));
+        }
+        log.debug(HOT_PATH, "Deleted {} with id: {}", entityClass.getSimpleName(), id);
+    }
+
+    @Override
+    public void deleteAllById(Collection<ID> ids) {
+        metrics.timeDao(entityClass, "deleteAllById", () -> doDeleteAll(ids));
+    }
+
+    private void doDeleteAll(Collection<ID> ids) {
+        List<Long> keys = new ArrayList<>(ids.size());
+        ids.forEach(id -> keys.add(toKey(id)));
+        if (writeAheadLog != null) {
+            writeAheadLog.applyAndLogDeleteAll(entityClass, keys, () -> storage.deleteAll(entityClass, keys));
+        } else {
+            storage.deleteAll(entityClass, keys);
+        }
+        log.debug(HOT_PATH, "Deleted {} {} entities", keys.size(), entityClass.getSimpleName());
+    }
+
+    /**
+     * Runs {@code apply}, which stores {@code entity}, and logs the put in the
+     * same ordered step when the write-ahead log is enabled.
+     */
+    protected void applyPut(T entity, Runnable apply) {
+        if (writeAheadLog == null) {
+            apply.run();
+            return;
+        }
+        writeAheadLog.applyAndLogPut(entityClass, toKey(getId(entity)), () -> {
+            apply.run();
+            return entity;
+        });
+    }
+
+    protected long toKey(ID id) {
+        return ((Number) id).longValue();
     }
 
     public boolean existsByUsername(String username) {
-        return storage.existsByUsername(username);
+        return metrics.timeDao(entityClass, "existsByUsername", () -> storage.existsByUsername(username));
+    }
+
+    public boolean reserveUsername(String username) {
+        return storage.reserveUsername(username);
+    }
+
+    public void cancelUsernameReservation(String username) {
+        storage.cancelUsernameReservation(username);
+    }
+
+    public Optional<T> findByUsername(String username) {
+        return metrics.timeDao(entityClass, "findByUsername", () -> storage.findByUsername(username)
+                .filter(entityClass::isInstance)
+                .map(entityClass::cast));
     }
 }
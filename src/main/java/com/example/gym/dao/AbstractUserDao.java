@@ -0,0 +1,38 @@
+package com.example.gym.dao;
+
+import com.example.gym.model.User;
+import lombok.extern.slf4j.Slf4j;
+
+import static com.example.gym.logging.LogMarkers.HOT_PATH;
+
+@Slf4j
+public abstract class AbstractUserDao<T extends User> extends AbstractDao<T, Long> {
+
+    protected AbstractUserDao(Class<T> entityClass) {
+        super(entityClass);
+    }
+
+    @Override
+    protected Long getId(T entity) {
+        return entity.getUserId();
+    }
+
+    @Override
+    protected void setId(T entity, Long id) {
+        entity.setUserId(id);
+    }
+
+    /**
+     * Stores {@code replacement} only if the stored user is still at
+     * {@code expectedVersion}; see {@link com.example.gym.storage.InMemoryStorage#replace}.
+     */
+    public T update(T replacement, long expectedVersion) {
+        return metrics.timeDao(entityClass, "update", () -> {
+            applyPut(replacement,
+                    () -> storage.replace(entityClass, toKey(replacement.getUserId()), expectedVersion, replacement));
+            log.debug(HOT_PATH, "Updated {}: {} to version {}",
+                    entityClass.getSimpleName(), replacement.getUserId(), replacement.getVersion());
+            return replacement;
+        });
+    }
+}
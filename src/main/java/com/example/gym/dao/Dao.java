@@ -1,11 +1,22 @@
 package com.example.gym.dao;
 
+import com.example.gym.query.Page;
+import com.example.gym.query.Query;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public interface Dao<T, ID> {
     T save(T entity);
+    List<T> saveAll(List<T> entities);
     T findById(ID id);
     List<T> findByCondition(Predicate<T> condition);
+    List<T> findByQuery(Query query);
+    Stream<T> streamByCondition(Predicate<T> condition);
+    Stream<T> streamByQuery(Query query);
+    Page<T> findPage(Query query, Long afterId, int limit);
     void deleteById(ID id);
+    void deleteAllById(Collection<ID> ids);
 }
@@ -6,19 +6,9 @@ import org.springframework.stereotype.Repository;
 
 @Repository
 @Slf4j
-public class TraineeDao extends AbstractDao<Trainee, Long> {
+public class TraineeDao extends AbstractUserDao<Trainee> {
 
     public TraineeDao() {
         super(Trainee.class);
     }
-
-    @Override
-    protected Long getId(Trainee entity) {
-        return entity.getUserId();
-    }
-
-    @Override
-    protected void setId(Trainee entity, Long id) {
-        entity.setUserId(id);
-    }
 }
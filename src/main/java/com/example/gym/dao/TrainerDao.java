@@ -1,24 +1,35 @@
 package com.example.gym.dao;
 
 import com.example.gym.model.Trainer;
+import com.example.gym.storage.TrainingSchedule;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 @Slf4j
-public class TrainerDao extends AbstractDao<Trainer, Long> {
+public class TrainerDao extends AbstractUserDao<Trainer> {
 
     public TrainerDao() {
         super(Trainer.class);
     }
 
-    @Override
-    protected Long getId(Trainer entity) {
-        return entity.getUserId();
+    public List<Trainer> findMatching(String specialization, int limit) {
+        return metrics.timeDao(Trainer.class, "findMatching",
+                () -> storage.matchTrainers(specialization, trainerId -> true, limit));
     }
 
-    @Override
-    protected void setId(Trainer entity, Long id) {
-        entity.setUserId(id);
+    /**
+     * Like {@link #findMatching}, but only trainers with nothing booked overlapping
+     * {@code duration} minutes from {@code start}.
+     */
+    public List<Trainer> findMatchingAvailable(String specialization, LocalDateTime start, int duration, int limit) {
+        return metrics.timeDao(Trainer.class, "findMatchingAvailable", () -> {
+            TrainingSchedule schedule = storage.trainingSchedule();
+            return storage.matchTrainers(specialization,
+                    trainerId -> schedule.isTrainerFree(trainerId, start, duration), limit);
+        });
     }
 }
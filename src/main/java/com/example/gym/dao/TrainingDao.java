@@ -1,9 +1,25 @@
 package com.example.gym.dao;
 
 import com.example.gym.model.Training;
+import com.example.gym.query.TimeSlot;
+import com.example.gym.query.TrainingStats;
+import com.example.gym.storage.InMemoryStorage;
+import com.example.gym.storage.OwnerDayKey;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.gym.logging.LogMarkers.HOT_PATH;
+
+/**
+ * Trainings DAO. Only {@link #saveScheduled} and {@link #saveAllScheduled} check
+ * the trainer's and trainee's schedules, and they are what the service uses to
+ * create trainings; the inherited {@code save} and {@code saveAll} store
+ * trainings as given, e.g. for imports of past bookings.
+ */
 @Repository
 @Slf4j
 public class TrainingDao extends AbstractDao<Training, Long> {
@@ -21,4 +37,101 @@ public class TrainingDao extends AbstractDao<Training, Long> {
     protected void setId(Training entity, Long id) {
         entity.setTrainingId(id);
     }
+
+    /**
+     * Saves a training only if it does not overlap another training of the same
+     * trainer or trainee; see {@link InMemoryStorage#putScheduled}.
+     */
+    public Training saveScheduled(Training training) {
+        return metrics.timeDao(Training.class, "saveScheduled", () -> {
+            if (training.getTrainingId() == null) {
+                training.setTrainingId(storage.generateId(Training.class));
+            }
+            applyPut(training, () -> storage.putScheduled(training.getTrainingId(), training));
+            log.debug(HOT_PATH, "Saved scheduled training: {}", training.getTrainingId());
+            return training;
+        });
+    }
+
+    /**
+     * Saves a batch of trainings only if none of them overlaps a booked training or
+     * another one in the batch; see {@link InMemoryStorage#putAllScheduled}.
+     */
+    public List<Training> saveAllScheduled(List<Training> trainings) {
+        return metrics.timeDao(Training.class, "saveAllScheduled",
+                () -> doSaveAll(trainings, storage::putAllScheduled));
+    }
+
+    public List<TimeSlot> findTrainerFreeSlots(Long trainerId, LocalDateTime from, LocalDateTime to, int minDuration) {
+        return metrics.timeDao(Training.class, "findTrainerFreeSlots",
+                () -> storage.trainingSchedule().trainerFreeSlots(trainerId, from, to, minDuration));
+    }
+
+    public List<TimeSlot> findTraineeFreeSlots(Long traineeId, LocalDateTime from, LocalDateTime to, int minDuration) {
+        return metrics.timeDao(Training.class, "findTraineeFreeSlots",
+                () -> storage.trainingSchedule().traineeFreeSlots(traineeId, from, to, minDuration));
+    }
+
+    public List<Training> findByTraineeId(Long traineeId) {
+        return metrics.timeDao(Training.class, "findByTraineeId",
+                () -> storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, traineeId));
+    }
+
+    public List<Training> findByTrainerId(Long trainerId) {
+        return metrics.timeDao(Training.class, "findByTrainerId",
+                () -> storage.getByIndex(Training.class, InMemoryStorage.TRAINER_ID_INDEX, trainerId));
+    }
+
+    public List<Training> findByTypeId(Long trainingTypeId) {
+        return metrics.timeDao(Training.class, "findByTypeId",
+                () -> storage.getByIndex(Training.class, InMemoryStorage.TRAINING_TYPE_ID_INDEX, trainingTypeId));
+    }
+
+    public List<Training> findByDateRange(LocalDate from, LocalDate to) {
+        return metrics.timeDao(Training.class, "findByDateRange",
+                () -> storage.getByRange(Training.class, InMemoryStorage.TRAINING_DATE_INDEX,
+                        from.toEpochDay(), to.toEpochDay()));
+    }
+
+    public List<Training> findByTraineeIdAndDateRange(Long traineeId, LocalDate from, LocalDate to) {
+        return metrics.timeDao(Training.class, "findByTraineeIdAndDateRange",
+                () -> storage.getByRange(Training.class, InMemoryStorage.TRAINEE_DATE_INDEX,
+                        new OwnerDayKey(traineeId, from.toEpochDay()), new OwnerDayKey(traineeId, to.toEpochDay())));
+    }
+
+    public List<Training> findByTrainerIdAndDateRange(Long trainerId, LocalDate from, LocalDate to) {
+        return metrics.timeDao(Training.class, "findByTrainerIdAndDateRange",
+                () -> storage.getByRange(Training.class, InMemoryStorage.TRAINER_DATE_INDEX,
+                        new OwnerDayKey(trainerId, from.toEpochDay()), new OwnerDayKey(trainerId, to.toEpochDay())));
+    }
+
+    public TrainingStats statsForTrainee(Long traineeId) {
+        return metrics.timeDao(Training.class, "statsForTrainee",
+                () -> storage.trainingAggregates().forTrainee(traineeId));
+    }
+
+    public TrainingStats statsForTrainee(Long traineeId, LocalDate from, LocalDate to) {
+        return metrics.timeDao(Training.class, "statsForTraineeAndDateRange",
+                () -> storage.trainingAggregates().forTrainee(traineeId, from.toEpochDay(), to.toEpochDay()));
+    }
+
+    public TrainingStats statsForTrainer(Long trainerId) {
+        return metrics.timeDao(Training.class, "statsForTrainer",
+                () -> storage.trainingAggregates().forTrainer(trainerId));
+    }
+
+    public TrainingStats statsForTrainer(Long trainerId, LocalDate from, LocalDate to) {
+        return metrics.timeDao(Training.class, "statsForTrainerAndDateRange",
+                () -> storage.trainingAggregates().forTrainer(trainerId, from.toEpochDay(), to.toEpochDay()));
+    }
+
+    public TrainingStats statsForType(Long trainingTypeId) {
+        return metrics.timeDao(Training.class, "statsForType",
+                () -> storage.trainingAggregates().forType(trainingTypeId));
+    }
+
+    public TrainingStats statsForDateRange(LocalDate from, LocalDate to) {
+        return metrics.timeDao(Training.class, "statsForDateRange",
+                () -> storage.trainingAggregates().forDays(from.toEpochDay(), to.toEpochDay()));
+    }
 }
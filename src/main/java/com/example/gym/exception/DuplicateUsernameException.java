@@ -0,0 +1,8 @@
+package com.example.gym.exception;
+
+public class DuplicateUsernameException extends RuntimeException {
+
+    public DuplicateUsernameException(String username) {
+        super("Username already taken: " + username);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.gym.exception;
+
+import java.util.List;
+
+public class ScheduleConflictException extends RuntimeException {
+
+    public ScheduleConflictException(Long trainingId, List<Long> conflictingTrainingIds) {
+        super("Training with id: " + trainingId + " overlaps booked trainings: " + conflictingTrainingIds);
+    }
+}
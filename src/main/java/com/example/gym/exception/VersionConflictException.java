@@ -0,0 +1,9 @@
+package com.example.gym.exception;
+
+public class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException(String entityType, Long id, long expectedVersion, long actualVersion) {
+        super(entityType + " with id: " + id + " was modified concurrently (expected version "
+                + expectedVersion + ", found " + actualVersion + ")");
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.gym.facade;
 
+import com.example.gym.metrics.GymMetrics;
 import com.example.gym.model.Trainee;
 import com.example.gym.model.Trainer;
 import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import com.example.gym.query.TimeSlot;
 import com.example.gym.service.TraineeService;
 import com.example.gym.service.TrainerService;
 import com.example.gym.service.TrainingService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import static com.example.gym.logging.LogMarkers.HOT_PATH;
+
 @Component
 @Slf4j
 public class GymFacade {
@@ -16,58 +26,107 @@ public class GymFacade {
     private final TraineeService traineeService;
     private final TrainerService trainerService;
     private final TrainingService trainingService;
+    private final GymMetrics metrics;
 
     public GymFacade(TraineeService traineeService,
                      TrainerService trainerService,
                      TrainingService trainingService) {
+        this(traineeService, trainerService, trainingService, GymMetrics.noop());
+    }
+
+    @Autowired
+    public GymFacade(TraineeService traineeService,
+                     TrainerService trainerService,
+                     TrainingService trainingService,
+                     GymMetrics metrics) {
         this.traineeService = traineeService;
         this.trainerService = trainerService;
         this.trainingService = trainingService;
+        this.metrics = metrics;
         log.info("GymFacade initialized");
     }
 
     public Trainee createTrainee(Trainee trainee) {
-        log.info("Facade: Creating trainee");
-        return traineeService.create(trainee);
+        log.info(HOT_PATH, "Facade: Creating trainee");
+        return metrics.timeFacade("createTrainee", () -> traineeService.create(trainee));
     }
 
     public Trainee selectTrainee(Long id) {
-        log.info("Facade: Selecting trainee with id: {}", id);
-        return traineeService.select(id);
+        log.info(HOT_PATH, "Facade: Selecting trainee with id: {}", id);
+        return metrics.timeFacade("selectTrainee", () -> traineeService.select(id));
     }
 
     public Trainee updateTrainee(Long id, Trainee trainee) {
-        log.info("Facade: Updating trainee with id: {}", id);
-        return traineeService.update(id, trainee);
+        log.info(HOT_PATH, "Facade: Updating trainee with id: {}", id);
+        return metrics.timeFacade("updateTrainee", () -> traineeService.update(id, trainee));
     }
 
     public void deleteTrainee(Long id) {
-        log.info("Facade: Deleting trainee with id: {}", id);
-        traineeService.delete(id);
+        log.info(HOT_PATH, "Facade: Deleting trainee with id: {}", id);
+        metrics.timeFacade("deleteTrainee", () -> traineeService.delete(id));
+    }
+
+    public List<Trainee> createTrainees(List<Trainee> trainees) {
+        log.info(HOT_PATH, "Facade: Creating {} trainees", trainees.size());
+        return metrics.timeFacade("createTrainees", () -> traineeService.createAll(trainees));
+    }
+
+    public void deleteTrainees(Collection<Long> ids) {
+        log.info(HOT_PATH, "Facade: Deleting {} trainees", ids.size());
+        metrics.timeFacade("deleteTrainees", () -> traineeService.deleteAll(ids));
     }
 
     public Trainer createTrainer(Trainer trainer) {
-        log.info("Facade: Creating trainer");
-        return trainerService.create(trainer);
+        log.info(HOT_PATH, "Facade: Creating trainer");
+        return metrics.timeFacade("createTrainer", () -> trainerService.create(trainer));
+    }
+
+    public List<Trainer> createTrainers(List<Trainer> trainers) {
+        log.info(HOT_PATH, "Facade: Creating {} trainers", trainers.size());
+        return metrics.timeFacade("createTrainers", () -> trainerService.createAll(trainers));
     }
 
     public Trainer selectTrainer(Long id) {
-        log.info("Facade: Selecting trainer with id: {}", id);
-        return trainerService.select(id);
+        log.info(HOT_PATH, "Facade: Selecting trainer with id: {}", id);
+        return metrics.timeFacade("selectTrainer", () -> trainerService.select(id));
     }
 
     public Trainer updateTrainer(Long id, Trainer trainer) {
-        log.info("Facade: Updating trainer with id: {}", id);
-        return trainerService.update(id, trainer);
+        log.info(HOT_PATH, "Facade: Updating trainer with id: {}", id);
+        return metrics.timeFacade("updateTrainer", () -> trainerService.update(id, trainer));
+    }
+
+    public List<Trainer> matchTrainers(TrainingType trainingType, int limit) {
+        log.info(HOT_PATH, "Facade: Matching trainers for training type: {}", trainingType.getTrainingTypeName());
+        return metrics.timeFacade("matchTrainers", () -> trainerService.findMatching(trainingType, limit));
+    }
+
+    public List<Trainer> matchAvailableTrainers(TrainingType trainingType, LocalDateTime start, int duration,
+                                                int limit) {
+        log.info(HOT_PATH, "Facade: Matching trainers for training type {} at {}",
+                trainingType.getTrainingTypeName(), start);
+        return metrics.timeFacade("matchAvailableTrainers",
+                () -> trainerService.findAvailable(trainingType, start, duration, limit));
     }
 
     public Training createTraining(Training training) {
-        log.info("Facade: Creating training");
-        return trainingService.create(training);
+        log.info(HOT_PATH, "Facade: Creating training");
+        return metrics.timeFacade("createTraining", () -> trainingService.create(training));
+    }
+
+    public List<Training> createTrainings(List<Training> trainings) {
+        log.info(HOT_PATH, "Facade: Creating {} trainings", trainings.size());
+        return metrics.timeFacade("createTrainings", () -> trainingService.createAll(trainings));
     }
 
     public Training selectTraining(Long id) {
-        log.info("Facade: Selecting training with id: {}", id);
-        return trainingService.select(id);
+        log.info(HOT_PATH, "Facade: Selecting training with id: {}", id);
+        return metrics.timeFacade("selectTraining", () -> trainingService.select(id));
+    }
+
+    public List<TimeSlot> findTrainerFreeSlots(Long trainerId, LocalDateTime from, LocalDateTime to, int minDuration) {
+        log.info(HOT_PATH, "Facade: Finding free slots of trainer with id: {}", trainerId);
+        return metrics.timeFacade("findTrainerFreeSlots",
+                () -> trainingService.findTrainerFreeSlots(trainerId, from, to, minDuration));
     }
 }
@@ -0,0 +1,79 @@
+package com.example.gym.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thins out log lines marked with {@link LogMarkers#HOT_PATH} before any
+ * logging event is built, so dropped lines cost neither formatting nor I/O.
+ * <p>
+ * Modes:
+ * <ul>
+ *     <li>{@code full} - every line is logged (default)</li>
+ *     <li>{@code sampled} - on average one line in {@code sampleRate} is logged</li>
+ *     <li>{@code rate-limited} - at most {@code maxPerSecond} lines per second are logged</li>
+ *     <li>{@code off} - hot path lines are dropped</li>
+ * </ul>
+ * WARN and ERROR lines, and lines without the marker, are never filtered.
+ */
+public class HotPathSamplingFilter extends TurboFilter {
+
+    enum Mode { FULL, SAMPLED, RATE_LIMITED, OFF }
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private volatile Mode mode = Mode.FULL;
+    private volatile int sampleRate = 100;
+    private volatile int maxPerSecond = 100;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    public void setMode(String mode) {
+        this.mode = Mode.valueOf(mode.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+    }
+
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+
+    public void setMaxPerSecond(int maxPerSecond) {
+        if (maxPerSecond < 0) {
+            throw new IllegalArgumentException("Max per second must not be negative: " + maxPerSecond);
+        }
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+        if (marker == null || !marker.contains(LogMarkers.HOT_PATH) || level.isGreaterOrEqual(Level.WARN)) {
+            return FilterReply.NEUTRAL;
+        }
+        return switch (mode) {
+            case FULL -> FilterReply.NEUTRAL;
+            case SAMPLED -> ThreadLocalRandom.current().nextInt(sampleRate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+            case RATE_LIMITED -> withinRate() ? FilterReply.NEUTRAL : FilterReply.DENY;
+            case OFF -> FilterReply.DENY;
+        };
+    }
+
+    private boolean withinRate() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= SECOND_NANOS && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= maxPerSecond;
+    }
+}
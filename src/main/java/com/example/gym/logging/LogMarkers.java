@@ -0,0 +1,16 @@
+package com.example.gym.logging;
+
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+public final class LogMarkers {
+
+    /**
+     * Marks per-call log lines on request paths. These are subject to
+     * {@link HotPathSamplingFilter}, so they may be sampled or dropped under load.
+     */
+    public static final Marker HOT_PATH = MarkerFactory.getMarker("HOT_PATH");
+
+    private LogMarkers() {
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.gym.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latency timers for facade operations and DAO calls.
+ * <p>
+ * Every call is recorded under an {@code outcome} tag of {@code success} or
+ * {@code error}, so the timer counts double as call and failure counters.
+ * Timers publish p50/p95/p99 and are cached per tag combination to keep
+ * the registry lookup off the hot path.
+ */
+@Component
+public class GymMetrics {
+
+    public static final String FACADE_TIMER = "gym.facade.operation";
+    public static final String DAO_TIMER = "gym.dao.operation";
+
+    private static final GymMetrics NOOP = new GymMetrics(null);
+
+    private final MeterRegistry registry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public GymMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Instance that records nothing, for components built outside of Spring.
+     */
+    public static GymMetrics noop() {
+        return NOOP;
+    }
+
+    public <T> T timeFacade(String operation, Supplier<T> call) {
+        return time(FACADE_TIMER, "facade", operation, call);
+    }
+
+    public void timeFacade(String operation, Runnable call) {
+        timeFacade(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    public <T> T timeDao(Class<?> entityClass, String operation, Supplier<T> call) {
+        return time(DAO_TIMER, entityClass.getSimpleName(), operation, call);
+    }
+
+    public void timeDao(Class<?> entityClass, String operation, Runnable call) {
+        timeDao(entityClass, operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private <T> T time(String name, String entity, String operation, Supplier<T> call) {
+        if (registry == null) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.get();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(name, entity, operation, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(String name, String entity, String operation, String outcome) {
+        String key = name + '|' + entity + '|' + operation + '|' + outcome;
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(name)
+                    .tag("entity", entity)
+                    .tag("operation", operation)
+                    .tag("outcome", outcome)
+                    .publishPercentiles(0.5, 0.95, 0.99)
+                    .register(registry));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.gym.metrics;
+
+import com.example.gym.storage.InMemoryStorage;
+import com.example.gym.storage.ScanListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage-level meters: entity count and id counter gauges per entity type,
+ * and the cost of full partition scans in entities visited versus matched.
+ * Registers itself as the storage's {@link ScanListener} once bound.
+ */
+@Component
+public class StorageMetrics implements MeterBinder, ScanListener {
+
+    public static final String ENTITIES_GAUGE = "gym.storage.entities";
+    public static final String ID_COUNTER_GAUGE = "gym.storage.id.counter";
+    public static final String SCAN_TIMER = "gym.storage.scan";
+    public static final String SCAN_VISITED = "gym.storage.scan.visited";
+    public static final String SCAN_MATCHED = "gym.storage.scan.matched";
+
+    private final InMemoryStorage storage;
+    private final Map<Class<?>, ScanMeters> scanMeters = new ConcurrentHashMap<>();
+    private MeterRegistry registry;
+
+    public StorageMetrics(InMemoryStorage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        for (Class<?> entityClass : storage.entityClasses()) {
+            String entity = entityClass.getSimpleName();
+            Gauge.builder(ENTITIES_GAUGE, storage, s -> s.size(entityClass))
+                    .tag("entity", entity)
+                    .register(registry);
+            Gauge.builder(ID_COUNTER_GAUGE, storage, s -> s.getIdCounter(entityClass))
+                    .tag("entity", entity)
+                    .register(registry);
+        }
+        storage.setScanListener(this);
+    }
+
+    @Override
+    public void onScan(Class<?> entityClass, int visited, int matched, long elapsedNanos) {
+        ScanMeters meters = scanMeters.computeIfAbsent(entityClass, this::scanMeters);
+        meters.timer().record(elapsedNanos, TimeUnit.NANOSECONDS);
+        meters.visited().increment(visited);
+        meters.matched().increment(matched);
+    }
+
+    private ScanMeters scanMeters(Class<?> entityClass) {
+        String entity = entityClass.getSimpleName();
+        return new ScanMeters(
+                Timer.builder(SCAN_TIMER)
+                        .tag("entity", entity)
+                        .publishPercentiles(0.5, 0.95, 0.99)
+                        .register(registry),
+                Counter.builder(SCAN_VISITED).tag("entity", entity).register(registry),
+                Counter.builder(SCAN_MATCHED).tag("entity", entity).register(registry));
+    }
+
+    private record ScanMeters(Timer timer, Counter visited, Counter matched) {
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.gym.model;
 
+import com.example.gym.utils.EpochDays;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
@@ -10,6 +12,23 @@ import lombok.ToString;
 @EqualsAndHashCode(callSuper = true)
 @ToString(callSuper = true)
 public class Trainee extends User {
-    private String dateOfBirth;
+    @JsonIgnore
+    private int birthEpochDay = EpochDays.NONE;
     private String address;
+
+    public String getDateOfBirth() {
+        return EpochDays.format(birthEpochDay);
+    }
+
+    public void setDateOfBirth(String dateOfBirth) {
+        this.birthEpochDay = EpochDays.parse(dateOfBirth);
+    }
+
+    @Override
+    public Trainee copy() {
+        Trainee copy = copyUserFieldsTo(new Trainee());
+        copy.setBirthEpochDay(birthEpochDay);
+        copy.setAddress(address);
+        return copy;
+    }
 }
@@ -12,4 +12,12 @@ import lombok.ToString;
 public class Trainer extends User {
     private Long trainerId;
     private String specialization;
+
+    @Override
+    public Trainer copy() {
+        Trainer copy = copyUserFieldsTo(new Trainer());
+        copy.setTrainerId(trainerId);
+        copy.setSpecialization(specialization);
+        return copy;
+    }
 }
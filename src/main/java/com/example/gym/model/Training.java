@@ -1,12 +1,16 @@
 package com.example.gym.model;
 
+import com.example.gym.utils.DayMinutes;
+import com.example.gym.utils.EpochDays;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@AllArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
 @NoArgsConstructor
 @Builder
 public class Training {
@@ -15,6 +19,48 @@ public class Training {
     private Long trainerId;
     private String trainingName;
     private TrainingType trainingType;
-    private String trainingDate;
-    private Integer trainingDuration;
+    @JsonIgnore
+    @Builder.Default
+    private int trainingEpochDay = EpochDays.NONE;
+    @JsonIgnore
+    @Builder.Default
+    private int trainingStartMinute = DayMinutes.NONE;
+    private int trainingDuration;
+
+    public String getTrainingDate() {
+        return EpochDays.format(trainingEpochDay);
+    }
+
+    public void setTrainingDate(String trainingDate) {
+        this.trainingEpochDay = EpochDays.parse(trainingDate);
+    }
+
+    /**
+     * Start time as {@code HH:mm}, or null for trainings booked by day only.
+     */
+    public String getTrainingTime() {
+        return DayMinutes.format(trainingStartMinute);
+    }
+
+    public void setTrainingTime(String trainingTime) {
+        this.trainingStartMinute = DayMinutes.parse(trainingTime);
+    }
+
+    /**
+     * Returns a copy sharing the same training type instance.
+     */
+    public Training copy() {
+        return new Training(trainingId, traineeId, trainerId, trainingName, trainingType,
+                trainingEpochDay, trainingStartMinute, trainingDuration);
+    }
+
+    public static class TrainingBuilder {
+        public TrainingBuilder trainingDate(String trainingDate) {
+            return trainingEpochDay(EpochDays.parse(trainingDate));
+        }
+
+        public TrainingBuilder trainingTime(String trainingTime) {
+            return trainingStartMinute(DayMinutes.parse(trainingTime));
+        }
+    }
 }
@@ -12,4 +12,8 @@ import lombok.NoArgsConstructor;
 public class TrainingType {
     private Long trainingTypeId;
     private String trainingTypeName;
+
+    public TrainingType copy() {
+        return new TrainingType(trainingTypeId, trainingTypeName);
+    }
 }
@@ -14,4 +14,22 @@ public abstract class User {
     private String username;
     private String password;
     private boolean isActive;
+    private Long version;
+
+    /**
+     * Returns a detached copy, so that an update can be prepared without touching
+     * the instance other readers may be holding.
+     */
+    public abstract User copy();
+
+    protected <U extends User> U copyUserFieldsTo(U target) {
+        target.setUserId(userId);
+        target.setFirstName(firstName);
+        target.setLastName(lastName);
+        target.setUsername(username);
+        target.setPassword(password);
+        target.setActive(isActive);
+        target.setVersion(version);
+        return target;
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.gym.query;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated result, in ascending id order. Pass
+ * {@code nextAfterId} as the cursor of the next request; it is null on the
+ * last page.
+ */
+public record Page<T>(List<T> items, Long nextAfterId) {
+
+    public boolean hasNext() {
+        return nextAfterId != null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.gym.query;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Declarative filter over named entity fields. Unlike an opaque predicate, the
+ * storage layer can inspect a query and answer it from a secondary index when
+ * one exists for a field it constrains.
+ * <p>
+ * Field names are the model property names, e.g. {@code traineeId},
+ * {@code active} or {@code trainingDate}. Date fields are compared as dates and
+ * accept {@link java.time.LocalDate} values; whole numbers of any integral type
+ * are treated as longs.
+ */
+public sealed interface Query {
+
+    record Eq(String field, Object value) implements Query {
+    }
+
+    record In(String field, Set<?> values) implements Query {
+    }
+
+    /**
+     * Inclusive range; a null bound leaves that side open.
+     */
+    record Range(String field, Object from, Object to) implements Query {
+    }
+
+    record And(List<Query> parts) implements Query {
+    }
+
+    record Or(List<Query> parts) implements Query {
+    }
+
+    static Query eq(String field, Object value) {
+        return new Eq(field, value);
+    }
+
+    static Query in(String field, Collection<?> values) {
+        return new In(field, Set.copyOf(values));
+    }
+
+    static Query in(String field, Object... values) {
+        return in(field, Arrays.asList(values));
+    }
+
+    static Query between(String field, Object fromInclusive, Object toInclusive) {
+        return new Range(field, fromInclusive, toInclusive);
+    }
+
+    static Query atLeast(String field, Object fromInclusive) {
+        return new Range(field, fromInclusive, null);
+    }
+
+    static Query atMost(String field, Object toInclusive) {
+        return new Range(field, null, toInclusive);
+    }
+
+    static Query and(Query... parts) {
+        return new And(List.of(parts));
+    }
+
+    static Query or(Query... parts) {
+        return new Or(List.of(parts));
+    }
+}
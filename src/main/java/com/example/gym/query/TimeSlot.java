@@ -0,0 +1,14 @@
+package com.example.gym.query;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Half-open interval of time, {@code [start, end)}.
+ */
+public record TimeSlot(LocalDateTime start, LocalDateTime end) {
+
+    public long minutes() {
+        return Duration.between(start, end).toMinutes();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.gym.query;
+
+/**
+ * Number of trainings and their total duration in minutes, for one trainee,
+ * trainer, training type or range of days.
+ */
+public record TrainingStats(long count, long totalDuration) {
+
+    public static final TrainingStats EMPTY = new TrainingStats(0, 0);
+
+    public TrainingStats plus(TrainingStats other) {
+        return new TrainingStats(count + other.count, totalDuration + other.totalDuration);
+    }
+
+    public double averageDuration() {
+        return count == 0 ? 0 : (double) totalDuration / count;
+    }
+}
@@ -1,10 +1,16 @@
 package com.example.gym.service;
 
 import com.example.gym.dao.Dao;
+import com.example.gym.query.Page;
+import com.example.gym.query.Query;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static com.example.gym.logging.LogMarkers.HOT_PATH;
 
 @Slf4j
 public abstract class AbstractService<T, ID, D extends Dao<T, ID>> {
@@ -16,17 +22,46 @@ public abstract class AbstractService<T, ID, D extends Dao<T, ID>> {
     }
 
     public T select(ID id) {
-        log.debug("Selecting entity with id: {}", id);
+        log.debug(HOT_PATH, "Selecting entity with id: {}", id);
         return dao.findById(id);
     }
 
     public void delete(ID id) {
-        log.debug("Deleting entity with id: {}", id);
+        log.debug(HOT_PATH, "Deleting entity with id: {}", id);
         dao.deleteById(id);
     }
 
+    public void deleteAll(Collection<ID> ids) {
+        log.debug(HOT_PATH, "Deleting {} entities", ids.size());
+        dao.deleteAllById(ids);
+    }
+
     public List<T> findByCondition(Predicate<T> condition) {
-        log.debug("Finding entities by condition");
+        log.debug(HOT_PATH, "Finding entities by condition");
         return dao.findByCondition(condition);
     }
+
+    public List<T> findByQuery(Query query) {
+        log.debug(HOT_PATH, "Finding entities by query: {}", query);
+        return dao.findByQuery(query);
+    }
+
+    /**
+     * Streams matches lazily instead of collecting them, for exports and other
+     * consumers that handle one entity at a time.
+     */
+    public Stream<T> streamByQuery(Query query) {
+        log.debug(HOT_PATH, "Streaming entities by query: {}", query);
+        return dao.streamByQuery(query);
+    }
+
+    public Stream<T> streamByCondition(Predicate<T> condition) {
+        log.debug(HOT_PATH, "Streaming entities by condition");
+        return dao.streamByCondition(condition);
+    }
+
+    public Page<T> findPage(Query query, Long afterId, int limit) {
+        log.debug(HOT_PATH, "Finding page of {} entities after id: {}", limit, afterId);
+        return dao.findPage(query, afterId, limit);
+    }
 }
@@ -7,6 +7,11 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.gym.logging.LogMarkers.HOT_PATH;
+
 @Service
 @Slf4j
 public class TraineeService extends AbstractService<Trainee, Long, TraineeDao> {
@@ -27,23 +32,67 @@ public class TraineeService extends AbstractService<Trainee, Long, TraineeDao> {
         trainee.setUsername(credentialsGenerator.generateUsername(
                 trainee.getFirstName(),
                 trainee.getLastName(),
-                dao::existsByUsername
+                username -> !dao.reserveUsername(username)
         ));
         trainee.setPassword(credentialsGenerator.generatePassword());
-        log.info("Creating trainee with username: {}", trainee.getUsername());
-        return dao.save(trainee);
+        log.info(HOT_PATH, "Creating trainee with username: {}", trainee.getUsername());
+        try {
+            return dao.save(trainee);
+        } catch (RuntimeException e) {
+            dao.cancelUsernameReservation(trainee.getUsername());
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a batch of trainees with one storage insert. Usernames are reserved
+     * up front and released again if the batch fails.
+     */
+    public List<Trainee> createAll(List<Trainee> trainees) {
+        List<String> passwords = credentialsGenerator.generatePasswords(trainees.size());
+        List<String> reserved = new ArrayList<>(trainees.size());
+        try {
+            for (int i = 0; i < trainees.size(); i++) {
+                Trainee trainee = trainees.get(i);
+                trainee.setUsername(credentialsGenerator.generateUsername(
+                        trainee.getFirstName(),
+                        trainee.getLastName(),
+                        username -> !dao.reserveUsername(username)
+                ));
+                reserved.add(trainee.getUsername());
+                trainee.setPassword(passwords.get(i));
+            }
+            log.info(HOT_PATH, "Creating {} trainees", trainees.size());
+            return dao.saveAll(trainees);
+        } catch (RuntimeException e) {
+            reserved.forEach(dao::cancelUsernameReservation);
+            throw e;
+        }
     }
 
+    /**
+     * Applies the update to a copy of the stored trainee and swaps it in with a
+     * compare-and-set, so readers never observe a half-applied update. The
+     * version carried by {@code updatedTrainee} is the one the caller read; when
+     * absent, the version read here is used.
+     *
+     * @throws com.example.gym.exception.VersionConflictException if the trainee
+     *         was changed by someone else in the meantime
+     */
     public Trainee update(Long id, Trainee updatedTrainee) {
         Trainee existing = dao.findById(id);
+        long expectedVersion = updatedTrainee.getVersion() != null
+                ? updatedTrainee.getVersion()
+                : existing.getVersion();
 
-        existing.setFirstName(updatedTrainee.getFirstName());
-        existing.setLastName(updatedTrainee.getLastName());
-        existing.setDateOfBirth(updatedTrainee.getDateOfBirth());
-        existing.setAddress(updatedTrainee.getAddress());
-        existing.setActive(updatedTrainee.isActive());
+        Trainee changed = existing.copy();
+        changed.setFirstName(updatedTrainee.getFirstName());
+        changed.setLastName(updatedTrainee.getLastName());
+        changed.setDateOfBirth(updatedTrainee.getDateOfBirth());
+        changed.setAddress(updatedTrainee.getAddress());
+        changed.setActive(updatedTrainee.isActive());
 
-        log.info("Updating trainee with id: {}", id);
-        return dao.save(existing);
+        log.info(HOT_PATH, "Updating trainee with id: {}", id);
+        return dao.update(changed, expectedVersion);
     }
 }
@@ -2,11 +2,18 @@ package com.example.gym.service;
 
 import com.example.gym.dao.TrainerDao;
 import com.example.gym.model.Trainer;
+import com.example.gym.model.TrainingType;
 import com.example.gym.utils.UserCredentialsGenerator;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.gym.logging.LogMarkers.HOT_PATH;
+
 @Service
 @Slf4j
 public class TrainerService extends AbstractService<Trainer, Long, TrainerDao> {
@@ -27,22 +34,84 @@ public class TrainerService extends AbstractService<Trainer, Long, TrainerDao> {
         trainer.setUsername(credentialsGenerator.generateUsername(
                 trainer.getFirstName(),
                 trainer.getLastName(),
-                dao::existsByUsername
+                username -> !dao.reserveUsername(username)
         ));
         trainer.setPassword(credentialsGenerator.generatePassword());
-        log.info("Creating trainer with username: {}", trainer.getUsername());
-        return dao.save(trainer);
+        log.info(HOT_PATH, "Creating trainer with username: {}", trainer.getUsername());
+        try {
+            return dao.save(trainer);
+        } catch (RuntimeException e) {
+            dao.cancelUsernameReservation(trainer.getUsername());
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a batch of trainers with one storage insert. Usernames are reserved
+     * up front and released again if the batch fails.
+     */
+    public List<Trainer> createAll(List<Trainer> trainers) {
+        List<String> passwords = credentialsGenerator.generatePasswords(trainers.size());
+        List<String> reserved = new ArrayList<>(trainers.size());
+        try {
+            for (int i = 0; i < trainers.size(); i++) {
+                Trainer trainer = trainers.get(i);
+                trainer.setUsername(credentialsGenerator.generateUsername(
+                        trainer.getFirstName(),
+                        trainer.getLastName(),
+                        username -> !dao.reserveUsername(username)
+                ));
+                reserved.add(trainer.getUsername());
+                trainer.setPassword(passwords.get(i));
+            }
+            log.info(HOT_PATH, "Creating {} trainers", trainers.size());
+            return dao.saveAll(trainers);
+        } catch (RuntimeException e) {
+            reserved.forEach(dao::cancelUsernameReservation);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} active trainers specialized in the training type,
+     * best matches first, and among equal matches the least booked first.
+     */
+    public List<Trainer> findMatching(TrainingType trainingType, int limit) {
+        log.debug(HOT_PATH, "Matching trainers for training type: {}", trainingType.getTrainingTypeName());
+        return dao.findMatching(trainingType.getTrainingTypeName(), limit);
+    }
+
+    /**
+     * Like {@link #findMatching}, but only trainers free for {@code duration}
+     * minutes from {@code start}.
+     */
+    public List<Trainer> findAvailable(TrainingType trainingType, LocalDateTime start, int duration, int limit) {
+        log.debug(HOT_PATH, "Matching trainers for training type {} at {}", trainingType.getTrainingTypeName(), start);
+        return dao.findMatchingAvailable(trainingType.getTrainingTypeName(), start, duration, limit);
     }
 
+    /**
+     * Applies the update to a copy of the stored trainer and swaps it in with a
+     * compare-and-set, so readers never observe a half-applied update. The
+     * version carried by {@code updatedTrainer} is the one the caller read; when
+     * absent, the version read here is used.
+     *
+     * @throws com.example.gym.exception.VersionConflictException if the trainer
+     *         was changed by someone else in the meantime
+     */
     public Trainer update(Long id, Trainer updatedTrainer) {
         Trainer existing = dao.findById(id);
+        long expectedVersion = updatedTrainer.getVersion() != null
+                ? updatedTrainer.getVersion()
+                : existing.getVersion();
 
-        existing.setFirstName(updatedTrainer.getFirstName());
-        existing.setLastName(updatedTrainer.getLastName());
-        existing.setSpecialization(updatedTrainer.getSpecialization());
-        existing.setActive(updatedTrainer.isActive());
+        Trainer changed = existing.copy();
+        changed.setFirstName(updatedTrainer.getFirstName());
+        changed.setLastName(updatedTrainer.getLastName());
+        changed.setSpecialization(updatedTrainer.getSpecialization());
+        changed.setActive(updatedTrainer.isActive());
 
-        log.info("Updating trainer with id: {}", id);
-        return dao.save(existing);
+        log.info(HOT_PATH, "Updating trainer with id: {}", id);
+        return dao.update(changed, expectedVersion);
     }
 }
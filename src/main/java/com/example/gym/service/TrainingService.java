@@ -2,10 +2,18 @@ package com.example.gym.service;
 
 import com.example.gym.dao.TrainingDao;
 import com.example.gym.model.Training;
+import com.example.gym.query.TimeSlot;
+import com.example.gym.query.TrainingStats;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static com.example.gym.logging.LogMarkers.HOT_PATH;
+
 @Service
 @Slf4j
 public class TrainingService extends AbstractService<Training, Long, TrainingDao> {
@@ -15,8 +23,90 @@ public class TrainingService extends AbstractService<Training, Long, TrainingDao
         this.dao = trainingDao;
     }
 
+    /**
+     * Books a training, rejecting it if its trainer or trainee already has a
+     * training at an overlapping time. Trainings without a start time are not
+     * checked.
+     *
+     * @throws com.example.gym.exception.ScheduleConflictException on overlap
+     */
     public Training create(Training training) {
-        log.info("Creating training: {}", training.getTrainingName());
-        return dao.save(training);
+        log.info(HOT_PATH, "Creating training: {}", training.getTrainingName());
+        return dao.saveScheduled(training);
+    }
+
+    /**
+     * Books a batch of trainings, all or nothing, rejecting it if any of them
+     * overlaps a booked training or another one in the batch.
+     *
+     * @throws com.example.gym.exception.ScheduleConflictException on overlap
+     */
+    public List<Training> createAll(List<Training> trainings) {
+        log.info(HOT_PATH, "Creating {} trainings", trainings.size());
+        return dao.saveAllScheduled(trainings);
+    }
+
+    public List<Training> findByTraineeId(Long traineeId) {
+        log.debug(HOT_PATH, "Finding trainings for trainee: {}", traineeId);
+        return dao.findByTraineeId(traineeId);
+    }
+
+    public List<Training> findByTrainerId(Long trainerId) {
+        log.debug(HOT_PATH, "Finding trainings for trainer: {}", trainerId);
+        return dao.findByTrainerId(trainerId);
+    }
+
+    public List<Training> findByTypeId(Long trainingTypeId) {
+        log.debug(HOT_PATH, "Finding trainings of type: {}", trainingTypeId);
+        return dao.findByTypeId(trainingTypeId);
+    }
+
+    public List<Training> findByDateRange(LocalDate from, LocalDate to) {
+        log.debug(HOT_PATH, "Finding trainings between {} and {}", from, to);
+        return dao.findByDateRange(from, to);
+    }
+
+    public List<Training> findByTraineeIdAndDateRange(Long traineeId, LocalDate from, LocalDate to) {
+        log.debug(HOT_PATH, "Finding trainings for trainee {} between {} and {}", traineeId, from, to);
+        return dao.findByTraineeIdAndDateRange(traineeId, from, to);
+    }
+
+    public List<Training> findByTrainerIdAndDateRange(Long trainerId, LocalDate from, LocalDate to) {
+        log.debug(HOT_PATH, "Finding trainings for trainer {} between {} and {}", trainerId, from, to);
+        return dao.findByTrainerIdAndDateRange(trainerId, from, to);
+    }
+
+    public List<TimeSlot> findTrainerFreeSlots(Long trainerId, LocalDateTime from, LocalDateTime to, int minDuration) {
+        log.debug(HOT_PATH, "Finding free slots of trainer {} between {} and {}", trainerId, from, to);
+        return dao.findTrainerFreeSlots(trainerId, from, to, minDuration);
+    }
+
+    public List<TimeSlot> findTraineeFreeSlots(Long traineeId, LocalDateTime from, LocalDateTime to, int minDuration) {
+        log.debug(HOT_PATH, "Finding free slots of trainee {} between {} and {}", traineeId, from, to);
+        return dao.findTraineeFreeSlots(traineeId, from, to, minDuration);
+    }
+
+    public TrainingStats getTraineeStats(Long traineeId) {
+        return dao.statsForTrainee(traineeId);
+    }
+
+    public TrainingStats getTraineeStats(Long traineeId, LocalDate from, LocalDate to) {
+        return dao.statsForTrainee(traineeId, from, to);
+    }
+
+    public TrainingStats getTrainerStats(Long trainerId) {
+        return dao.statsForTrainer(trainerId);
+    }
+
+    public TrainingStats getTrainerStats(Long trainerId, LocalDate from, LocalDate to) {
+        return dao.statsForTrainer(trainerId, from, to);
+    }
+
+    public TrainingStats getTypeStats(Long trainingTypeId) {
+        return dao.statsForType(trainingTypeId);
+    }
+
+    public TrainingStats getStats(LocalDate from, LocalDate to) {
+        return dao.statsForDateRange(from, to);
     }
 }
@@ -0,0 +1,199 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Training;
+import com.example.gym.utils.EpochDays;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One append-only segment of the cold training tier: a file of fixed capacity,
+ * mapped into memory once. Records are framed as
+ * {@code length, kind, id, epochDay, payload}, where the payload is the snapshot
+ * encoding of a training and is empty for a tombstone. A zero length marks the
+ * end of the written part, so a segment is recovered by walking it from the start.
+ * The file header records the {@link EntityCodec#VERSION} of the payloads; only
+ * segments of the current format and codec version are opened.
+ * <p>
+ * Appends must be serialized by the caller; reads may run concurrently with them
+ * and only look at records below the published end.
+ */
+final class ColdSegmentFile implements Closeable {
+
+    static final byte TRAINING = 1;
+    static final byte TOMBSTONE = 2;
+
+    private static final int MAGIC = 0x47594D43;
+    private static final int FORMAT_VERSION = 3;
+    private static final int FILE_HEADER_SIZE = Integer.BYTES * 3;
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES + 1 + Long.BYTES + Integer.BYTES;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private volatile int end;
+    private volatile int minEpochDay = Integer.MAX_VALUE;
+    private volatile int maxEpochDay = Integer.MIN_VALUE;
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(byte kind, long id, int epochDay, int offset);
+    }
+
+    private ColdSegmentFile(Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Opens or creates the segment and reports every record it already holds, in
+     * the order they were appended.
+     */
+    static ColdSegmentFile open(Path path, int capacity, RecordVisitor visitor) throws IOException {
+        boolean created = !Files.exists(path);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long size = created ? capacity : channel.size();
+            ColdSegmentFile segment = new ColdSegmentFile(path, channel,
+                    channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            if (created) {
+                segment.buffer.putInt(0, MAGIC);
+                segment.buffer.putInt(Integer.BYTES, FORMAT_VERSION);
+                segment.buffer.putInt(Integer.BYTES * 2, EntityCodec.VERSION);
+                segment.end = FILE_HEADER_SIZE;
+            } else {
+                segment.recover(visitor);
+            }
+            return segment;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void recover(RecordVisitor visitor) throws IOException {
+        if (buffer.capacity() < FILE_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a cold training segment: " + path);
+        }
+        int version = buffer.getInt(Integer.BYTES);
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported cold segment version " + version + ": " + path);
+        }
+        int codecVersion = buffer.getInt(Integer.BYTES * 2);
+        if (codecVersion != EntityCodec.VERSION) {
+            throw new IOException("Unsupported codec version " + codecVersion + " in " + path);
+        }
+        int offset = FILE_HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length < RECORD_HEADER_SIZE || offset + length > buffer.capacity()) {
+                break;
+            }
+            byte kind = kind(offset);
+            int epochDay = epochDay(offset);
+            if (kind == TRAINING) {
+                widen(epochDay);
+            }
+            visitor.visit(kind, id(offset), epochDay, offset);
+            offset += length;
+        }
+        end = offset;
+    }
+
+    /**
+     * Appends a record and returns its offset, or -1 if the segment has no room left.
+     */
+    int append(byte kind, long id, int epochDay, byte[] payload) {
+        int length = RECORD_HEADER_SIZE + payload.length;
+        int offset = end;
+        if (offset + length > buffer.capacity()) {
+            return -1;
+        }
+        buffer.put(offset + Integer.BYTES, kind);
+        buffer.putLong(offset + Integer.BYTES + 1, id);
+        buffer.putInt(offset + Integer.BYTES + 1 + Long.BYTES, epochDay);
+        buffer.put(offset + RECORD_HEADER_SIZE, payload);
+        buffer.putInt(offset, length);
+        if (kind == TRAINING) {
+            widen(epochDay);
+        }
+        end = offset + length;
+        return offset;
+    }
+
+    static int capacityFor(int payloadLength) {
+        return FILE_HEADER_SIZE + RECORD_HEADER_SIZE + payloadLength;
+    }
+
+    Training read(int offset) {
+        int length = buffer.getInt(offset);
+        byte[] payload = new byte[length - RECORD_HEADER_SIZE];
+        buffer.get(offset + RECORD_HEADER_SIZE, payload);
+        try {
+            return EntityCodecs.TRAINING.read(new DataInputStream(new ByteArrayInputStream(payload)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt cold training record at " + offset + " in " + path, e);
+        }
+    }
+
+    /**
+     * Reports the training records dated between the bounds, inclusive, without
+     * decoding them. Segments whose date span misses the bounds are skipped whole.
+     */
+    void scan(long fromEpochDay, long toEpochDay, RecordVisitor visitor) {
+        if (maxEpochDay < fromEpochDay || minEpochDay > toEpochDay) {
+            return;
+        }
+        int limit = end;
+        for (int offset = FILE_HEADER_SIZE; offset < limit; offset += buffer.getInt(offset)) {
+            int epochDay = epochDay(offset);
+            if (kind(offset) == TRAINING && epochDay >= fromEpochDay && epochDay <= toEpochDay) {
+                visitor.visit(TRAINING, id(offset), epochDay, offset);
+            }
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void widen(int epochDay) {
+        if (epochDay == EpochDays.NONE) {
+            return;
+        }
+        if (epochDay < minEpochDay) {
+            minEpochDay = epochDay;
+        }
+        if (epochDay > maxEpochDay) {
+            maxEpochDay = epochDay;
+        }
+    }
+
+    private byte kind(int offset) {
+        return buffer.get(offset + Integer.BYTES);
+    }
+
+    private long id(int offset) {
+        return buffer.getLong(offset + Integer.BYTES + 1);
+    }
+
+    private int epochDay(int offset) {
+        return buffer.getInt(offset + Integer.BYTES + 1 + Long.BYTES);
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Training;
+import com.example.gym.utils.EpochDays;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Cold tier for historical trainings. Trainings older than
+ * {@code storage.cold.max-age-days} are moved out of the storage's heap partition
+ * into append-only, memory-mapped segment files in {@code storage.cold.dir}. The
+ * storage reads through to them on every read path: by id, by trainee, trainer
+ * and type, by date range, and in queries, scans, streams and pages. The heap
+ * cost per archived training is its entry in the sorted location map and in
+ * the trainee, trainer and type id indexes; dates are not indexed, so date
+ * ranges scan the segments, skipping those outside the range.
+ * <p>
+ * Updating or deleting an archived training appends a tombstone; the latest
+ * record of an id wins when the segments are replayed on startup. Only created
+ * when a directory is configured.
+ */
+@Component
+@ConditionalOnExpression("!'${storage.cold.dir:}'.isEmpty()")
+@Slf4j
+public class ColdTrainingTier {
+
+    private static final String PREFIX = "cold-";
+    private static final String SUFFIX = ".seg";
+
+    private final InMemoryStorage storage;
+    private final Path directory;
+    private final int maxAgeDays;
+    private final int segmentBytes;
+    private final List<ColdSegmentFile> segments = new CopyOnWriteArrayList<>();
+    private final ConcurrentNavigableMap<Long, Long> locations = new ConcurrentSkipListMap<>();
+    private final Map<String, SecondaryIndex<Training>> indexes = Map.of(
+            InMemoryStorage.TRAINEE_ID_INDEX, new SecondaryIndex<>(Training::getTraineeId),
+            InMemoryStorage.TRAINER_ID_INDEX, new SecondaryIndex<>(Training::getTrainerId),
+            InMemoryStorage.TRAINING_TYPE_ID_INDEX, new SecondaryIndex<>(InMemoryStorage::trainingTypeId));
+
+    public ColdTrainingTier(InMemoryStorage storage,
+                            @Value("${storage.cold.dir}") String directory,
+                            @Value("${storage.cold.max-age-days:365}") int maxAgeDays,
+                            @Value("${storage.cold.segment-bytes:67108864}") int segmentBytes) throws IOException {
+        this.storage = storage;
+        this.directory = Path.of(directory);
+        this.maxAgeDays = maxAgeDays;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(this.directory);
+        for (Path path : segmentFiles(this.directory)) {
+            int index = segments.size();
+            segments.add(ColdSegmentFile.open(path, segmentBytes, (kind, id, epochDay, offset) -> {
+                if (kind == ColdSegmentFile.TRAINING) {
+                    locations.put(id, location(index, offset));
+                } else {
+                    locations.remove(id);
+                }
+            }));
+        }
+        forEach(training -> indexes.values().forEach(index -> index.update(training.getTrainingId(), null, training)));
+        storage.attachColdTier(this);
+        log.info("Cold training tier opened in {} with {} trainings in {} segments",
+                this.directory, locations.size(), segments.size());
+    }
+
+    @Scheduled(fixedDelayString = "${storage.cold.interval-ms:3600000}",
+            initialDelayString = "${storage.cold.interval-ms:3600000}")
+    public void scheduledArchive() {
+        try {
+            archiveOlderThan(LocalDate.now().minusDays(maxAgeDays));
+        } catch (UncheckedIOException e) {
+            log.error("Failed to move trainings to the cold tier in {}", directory, e);
+        }
+    }
+
+    /**
+     * Moves every training dated before {@code cutoff} to the cold tier and
+     * returns how many were moved.
+     */
+    public int archiveOlderThan(LocalDate cutoff) {
+        int moved = storage.archiveTrainings(cutoff.toEpochDay());
+        if (moved > 0) {
+            log.info("Moved {} trainings dated before {} to the cold tier", moved, cutoff);
+        }
+        return moved;
+    }
+
+    public int size() {
+        return locations.size();
+    }
+
+    boolean contains(long id) {
+        return locations.containsKey(id);
+    }
+
+    /**
+     * Returns the id index of archived trainings for {@code name}, or null for
+     * fields the tier does not index.
+     */
+    SecondaryIndex<Training> findIndex(String name) {
+        return indexes.get(name);
+    }
+
+    /**
+     * Ids of the archived trainings above {@code afterId}, in ascending order.
+     */
+    PrimitiveIterator.OfLong idsAfter(long afterId) {
+        return locations.tailMap(afterId, false).keySet().stream().mapToLong(Long::longValue).iterator();
+    }
+
+    Training get(long id) {
+        Long location = locations.get(id);
+        return location == null ? null : segments.get(segment(location)).read(offset(location));
+    }
+
+    /**
+     * Returns the archived trainings dated between the bounds, inclusive, that
+     * pass {@code filter}, ordered by date and id.
+     */
+    List<Training> scan(long fromEpochDay, long toEpochDay, Predicate<Training> filter) {
+        List<Training> result = new ArrayList<>();
+        visit(fromEpochDay, toEpochDay, training -> {
+            if (filter.test(training)) {
+                result.add(training);
+            }
+        });
+        result.sort(Comparator.comparingInt(Training::getTrainingEpochDay).thenComparing(Training::getTrainingId));
+        return result;
+    }
+
+    void forEach(Consumer<Training> action) {
+        visit(Long.MIN_VALUE, Long.MAX_VALUE, action);
+    }
+
+    private void visit(long fromEpochDay, long toEpochDay, Consumer<Training> action) {
+        for (int index = 0; index < segments.size(); index++) {
+            ColdSegmentFile segment = segments.get(index);
+            int current = index;
+            segment.scan(fromEpochDay, toEpochDay, (kind, id, epochDay, offset) -> {
+                if (Long.valueOf(location(current, offset)).equals(locations.get(id))) {
+                    action.accept(segment.read(offset));
+                }
+            });
+        }
+    }
+
+    /**
+     * Appends the trainings and syncs the active segment. Once this returns, reads
+     * of their ids are served from the tier whenever the heap no longer has them.
+     */
+    synchronized void append(Collection<Training> trainings) {
+        for (Training training : trainings) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try {
+                EntityCodecs.TRAINING.write(new DataOutputStream(bytes), training);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            long id = training.getTrainingId();
+            locations.put(id, write(ColdSegmentFile.TRAINING, id, training.getTrainingEpochDay(), bytes.toByteArray()));
+            indexes.values().forEach(index -> index.update(id, null, training));
+        }
+        active().force();
+    }
+
+    /**
+     * Drops an archived training, e.g. because a newer version was stored on heap
+     * or it was deleted. Does nothing for ids the tier does not hold.
+     */
+    void remove(long id) {
+        if (!locations.containsKey(id)) {
+            return;
+        }
+        synchronized (this) {
+            if (locations.remove(id) != null) {
+                indexes.values().forEach(index -> index.remove(id, null));
+                write(ColdSegmentFile.TOMBSTONE, id, EpochDays.NONE, new byte[0]);
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        for (ColdSegmentFile segment : segments) {
+            segment.close();
+        }
+        log.info("Cold training tier in {} closed", directory);
+    }
+
+    private long write(byte kind, long id, int epochDay, byte[] payload) {
+        if (ColdSegmentFile.capacityFor(payload.length) > segmentBytes) {
+            throw new IllegalArgumentException("Training " + id + " does not fit in a cold segment");
+        }
+        int offset = segments.isEmpty() ? -1 : active().append(kind, id, epochDay, payload);
+        if (offset < 0) {
+            roll();
+            offset = active().append(kind, id, epochDay, payload);
+        }
+        return location(segments.size() - 1, offset);
+    }
+
+    private void roll() {
+        if (!segments.isEmpty()) {
+            active().force();
+        }
+        Path path = directory.resolve(String.format("%s%06d%s", PREFIX, segments.size(), SUFFIX));
+        try {
+            segments.add(ColdSegmentFile.open(path, segmentBytes, (kind, id, epochDay, offset) -> { }));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private ColdSegmentFile active() {
+        return segments.get(segments.size() - 1);
+    }
+
+    private static long location(int segment, int offset) {
+        return (long) segment << 32 | offset;
+    }
+
+    private static int segment(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offset(long location) {
+        return (int) location;
+    }
+
+    private static List<Path> segmentFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+}
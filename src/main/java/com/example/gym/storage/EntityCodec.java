@@ -0,0 +1,62 @@
+package com.example.gym.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Compact binary encoding of one entity type, used by snapshots.
+ */
+abstract class EntityCodec<T> {
+
+    /**
+     * Version of the encoding produced by {@link #write}. Snapshots, log segments
+     * and cold segments record it in their headers, and only files of this
+     * version are read.
+     */
+    static final int VERSION = 3;
+
+    private final Class<T> entityClass;
+    private final byte tag;
+
+    protected EntityCodec(Class<T> entityClass, int tag) {
+        this.entityClass = entityClass;
+        this.tag = (byte) tag;
+    }
+
+    Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    byte getTag() {
+        return tag;
+    }
+
+    abstract long id(T entity);
+
+    abstract void write(DataOutput out, T entity) throws IOException;
+
+    abstract T read(DataInput in) throws IOException;
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    static void writeNullableLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    static Long readNullableLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Trainer;
+import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import com.example.gym.model.User;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Codecs for every stored entity type. Training types come first so that
+ * trainings restored after them pick up the shared type instances.
+ */
+final class EntityCodecs {
+
+    static final EntityCodec<TrainingType> TRAINING_TYPE = new EntityCodec<>(TrainingType.class, 1) {
+        @Override
+        long id(TrainingType entity) {
+            return entity.getTrainingTypeId();
+        }
+
+        @Override
+        void write(DataOutput out, TrainingType entity) throws IOException {
+            out.writeLong(entity.getTrainingTypeId());
+            writeString(out, entity.getTrainingTypeName());
+        }
+
+        @Override
+        TrainingType read(DataInput in) throws IOException {
+            return new TrainingType(in.readLong(), readString(in));
+        }
+    };
+
+    static final EntityCodec<Trainee> TRAINEE = new EntityCodec<>(Trainee.class, 2) {
+        @Override
+        long id(Trainee entity) {
+            return entity.getUserId();
+        }
+
+        @Override
+        void write(DataOutput out, Trainee entity) throws IOException {
+            writeUser(out, entity);
+            out.writeInt(entity.getBirthEpochDay());
+            writeString(out, entity.getAddress());
+        }
+
+        @Override
+        Trainee read(DataInput in) throws IOException {
+            Trainee trainee = new Trainee();
+            readUser(in, trainee);
+            trainee.setBirthEpochDay(in.readInt());
+            trainee.setAddress(readString(in));
+            return trainee;
+        }
+    };
+
+    static final EntityCodec<Trainer> TRAINER = new EntityCodec<>(Trainer.class, 3) {
+        @Override
+        long id(Trainer entity) {
+            return entity.getUserId();
+        }
+
+        @Override
+        void write(DataOutput out, Trainer entity) throws IOException {
+            writeUser(out, entity);
+            writeNullableLong(out, entity.getTrainerId());
+            writeString(out, entity.getSpecialization());
+        }
+
+        @Override
+        Trainer read(DataInput in) throws IOException {
+            Trainer trainer = new Trainer();
+            readUser(in, trainer);
+            trainer.setTrainerId(readNullableLong(in));
+            trainer.setSpecialization(readString(in));
+            return trainer;
+        }
+    };
+
+    static final EntityCodec<Training> TRAINING = new EntityCodec<>(Training.class, 4) {
+        @Override
+        long id(Training entity) {
+            return entity.getTrainingId();
+        }
+
+        @Override
+        void write(DataOutput out, Training entity) throws IOException {
+            out.writeLong(entity.getTrainingId());
+            writeNullableLong(out, entity.getTraineeId());
+            writeNullableLong(out, entity.getTrainerId());
+            writeString(out, entity.getTrainingName());
+            TrainingType type = entity.getTrainingType();
+            out.writeBoolean(type != null);
+            if (type != null) {
+                writeNullableLong(out, type.getTrainingTypeId());
+                writeString(out, type.getTrainingTypeName());
+            }
+            out.writeInt(entity.getTrainingEpochDay());
+            out.writeInt(entity.getTrainingDuration());
+            out.writeInt(entity.getTrainingStartMinute());
+        }
+
+        @Override
+        Training read(DataInput in) throws IOException {
+            Training training = new Training();
+            training.setTrainingId(in.readLong());
+            training.setTraineeId(readNullableLong(in));
+            training.setTrainerId(readNullableLong(in));
+            training.setTrainingName(readString(in));
+            if (in.readBoolean()) {
+                training.setTrainingType(new TrainingType(readNullableLong(in), readString(in)));
+            }
+            training.setTrainingEpochDay(in.readInt());
+            training.setTrainingDuration(in.readInt());
+            training.setTrainingStartMinute(in.readInt());
+            return training;
+        }
+    };
+
+    static final List<EntityCodec<?>> ALL = List.of(TRAINING_TYPE, TRAINEE, TRAINER, TRAINING);
+
+    private EntityCodecs() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> EntityCodec<T> forClass(Class<T> entityClass) {
+        for (EntityCodec<?> codec : ALL) {
+            if (codec.getEntityClass() == entityClass) {
+                return (EntityCodec<T>) codec;
+            }
+        }
+        throw new IllegalArgumentException("No codec for " + entityClass.getSimpleName());
+    }
+
+    static EntityCodec<?> byTag(byte tag) {
+        for (EntityCodec<?> codec : ALL) {
+            if (codec.getTag() == tag) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Unknown entity tag: " + tag);
+    }
+
+    private static void writeUser(DataOutput out, User user) throws IOException {
+        out.writeLong(user.getUserId());
+        EntityCodec.writeString(out, user.getFirstName());
+        EntityCodec.writeString(out, user.getLastName());
+        EntityCodec.writeString(out, user.getUsername());
+        EntityCodec.writeString(out, user.getPassword());
+        out.writeBoolean(user.isActive());
+        EntityCodec.writeNullableLong(out, user.getVersion());
+    }
+
+    private static void readUser(DataInput in, User user) throws IOException {
+        user.setUserId(in.readLong());
+        user.setFirstName(EntityCodec.readString(in));
+        user.setLastName(EntityCodec.readString(in));
+        user.setUsername(EntityCodec.readString(in));
+        user.setPassword(EntityCodec.readString(in));
+        user.setActive(in.readBoolean());
+        user.setVersion(EntityCodec.readNullableLong(in));
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.gym.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+/**
+ * Holds all entities of a single type, keyed by their numeric id, together with
+ * the secondary indexes declared for that type. Indexes and other derived
+ * structures are updated inside the store's per-id atomic step that writes the
+ * entity, so concurrent writes of one id leave them agreeing with the winner.
+ */
+class EntityPartition<T> {
+
+    private final Class<T> entityClass;
+    private volatile EntityStore<T> entities = new HeapEntityStore<>();
+    private final Map<String, SecondaryIndex<T>> indexes = new ConcurrentHashMap<>();
+    private final Map<String, Function<T, ?>> fields = new ConcurrentHashMap<>();
+    private final List<Derived<T>> derived = new CopyOnWriteArrayList<>();
+    private final IdSequence ids = new IdSequence();
+
+    EntityPartition(Class<T> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    Class<T> getEntityClass() {
+        return entityClass;
+    }
+
+    /**
+     * Swaps the primary store, e.g. for an off-heap one. Only allowed while the
+     * partition is empty, since indexes are not rebuilt. A store that hands out
+     * copies lets the indexes find old keys from the replaced entity, so they
+     * stop remembering the key of every id.
+     */
+    void useStore(EntityStore<T> store) {
+        if (entities.size() > 0) {
+            throw new IllegalStateException(
+                    "Cannot change the store of " + entityClass.getSimpleName() + " partition once it holds entities");
+        }
+        this.entities = store;
+        if (store.copiesOnRead()) {
+            indexes.values().forEach(SecondaryIndex::untrack);
+        }
+    }
+
+    IdSequence ids() {
+        return ids;
+    }
+
+    /**
+     * Declares a field that queries can refer to by name.
+     */
+    EntityPartition<T> addField(String name, Function<T, ?> extractor) {
+        fields.put(name, extractor);
+        return this;
+    }
+
+    Function<T, ?> field(String name) {
+        Function<T, ?> extractor = fields.get(name);
+        if (extractor == null) {
+            throw new IllegalArgumentException(
+                    "No field '" + name + "' on " + entityClass.getSimpleName());
+        }
+        return extractor;
+    }
+
+    SecondaryIndex<T> findIndex(String name) {
+        return indexes.get(name);
+    }
+
+    EntityPartition<T> addIndex(String name, Function<T, ?> keyExtractor) {
+        return addIndex(name, new SecondaryIndex<>(keyExtractor));
+    }
+
+    EntityPartition<T> addSortedIndex(String name, Function<T, ? extends Comparable<?>> keyExtractor) {
+        return addIndex(name, new SortedSecondaryIndex<>(keyExtractor));
+    }
+
+    private EntityPartition<T> addIndex(String name, SecondaryIndex<T> index) {
+        if (entities.copiesOnRead()) {
+            index.untrack();
+        }
+        entities.forEach((id, entity) -> index.update(id, null, entity));
+        indexes.put(name, index);
+        derived.add(new Derived<>(index::update, index::remove, false));
+        return this;
+    }
+
+    /**
+     * Registers a structure derived from the entities, kept current like the
+     * indexes. Unless {@code keepEvicted}, it also drops entities evicted to
+     * another tier by {@link #remove(long, Object)}.
+     */
+    EntityPartition<T> addDerived(Update<T> update, Remove<T> remove, boolean keepEvicted) {
+        derived.add(new Derived<>(update, remove, keepEvicted));
+        return this;
+    }
+
+    T get(long id) {
+        return entities.get(id);
+    }
+
+    T put(long id, T entity) {
+        return replace(id, current -> entity);
+    }
+
+    /**
+     * Atomically swaps the entity stored under {@code id} for the one returned by
+     * {@code replacer}, which sees the current entity (or null) and may throw to
+     * leave the partition unchanged; returning null removes the entry. Returns the
+     * entity that was replaced.
+     */
+    T replace(long id, UnaryOperator<T> replacer) {
+        return entities.compute(id, replacer, (current, next) -> {
+            if (next != null) {
+                derived.forEach(structure -> structure.update().apply(id, current, next));
+            } else if (current != null) {
+                derived.forEach(structure -> structure.remove().apply(id, current));
+            }
+        });
+    }
+
+    T remove(long id) {
+        return replace(id, current -> null);
+    }
+
+    /**
+     * Evicts the entity under {@code id}, e.g. to the cold tier, only if it still
+     * equals {@code expected}. Derived structures that keep evicted entities are
+     * left alone.
+     */
+    boolean remove(long id, T expected) {
+        boolean[] removed = {false};
+        entities.compute(id, current -> current != null && current.equals(expected) ? null : current,
+                (current, next) -> {
+                    if (current != null && next == null) {
+                        removed[0] = true;
+                        derived.stream()
+                                .filter(structure -> !structure.keepEvicted())
+                                .forEach(structure -> structure.remove().apply(id, current));
+                    }
+                });
+        return removed[0];
+    }
+
+    List<T> findByIndex(String name, Object key) {
+        return resolve(index(name).ids(key));
+    }
+
+    List<T> findByRange(String name, Object fromInclusive, Object toInclusive) {
+        if (!(index(name) instanceof SortedSecondaryIndex<T> sorted)) {
+            throw new IllegalArgumentException(
+                    "Index '" + name + "' on " + entityClass.getSimpleName() + " is not sorted");
+        }
+        return resolve(sorted.idsInRange(fromInclusive, toInclusive));
+    }
+
+    private SecondaryIndex<T> index(String name) {
+        SecondaryIndex<T> index = indexes.get(name);
+        if (index == null) {
+            throw new IllegalArgumentException(
+                    "No index '" + name + "' on " + entityClass.getSimpleName());
+        }
+        return index;
+    }
+
+    List<T> resolve(Collection<Long> ids) {
+        List<T> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            T entity = entities.get(id);
+            if (entity != null) {
+                result.add(entity);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids of the stored entities above {@code afterId}, in ascending order.
+     */
+    PrimitiveIterator.OfLong idsAfter(long afterId) {
+        return entities.idsAfter(afterId);
+    }
+
+    Collection<T> values() {
+        return entities.values();
+    }
+
+    int size() {
+        return entities.size();
+    }
+
+    /**
+     * Empties the store and its indexes; structures added with
+     * {@link #addDerived} are cleared by their owner.
+     */
+    void clear() {
+        entities.clear();
+        indexes.values().forEach(SecondaryIndex::clear);
+        ids.reset();
+    }
+
+    /**
+     * Applies a write of {@code id} to a derived structure. {@code previous} is the
+     * replaced entity or null; with a heap store it may be {@code next} itself,
+     * mutated in place and stored again.
+     */
+    @FunctionalInterface
+    interface Update<T> {
+        void apply(long id, T previous, T next);
+    }
+
+    /**
+     * Applies the removal of {@code id}, whose stored entity was {@code previous}.
+     */
+    @FunctionalInterface
+    interface Remove<T> {
+        void apply(long id, T previous);
+    }
+
+    private record Derived<T>(Update<T> update, Remove<T> remove, boolean keepEvicted) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.gym.storage;
+
+import java.util.Collection;
+import java.util.PrimitiveIterator;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Primary id-to-entity map behind an {@link EntityPartition}. Implementations
+ * must allow lock-free or optimistic reads concurrently with writes.
+ */
+interface EntityStore<T> {
+
+    T get(long id);
+
+    /**
+     * Stores {@code entity} under {@code id} and returns the entity it replaced.
+     */
+    T put(long id, T entity);
+
+    /**
+     * Atomically replaces the entity under {@code id} with the result of
+     * {@code replacer}, which sees the current entity or null. An exception from
+     * the replacer leaves the store unchanged. Returns the replaced entity.
+     */
+    default T compute(long id, UnaryOperator<T> replacer) {
+        return compute(id, replacer, (previous, next) -> {
+        });
+    }
+
+    /**
+     * Like {@link #compute(long, UnaryOperator)}, and once the change is in, runs
+     * {@code onCommit} with the replaced and the new entity within the same per-id
+     * atomic step. It is skipped if the replacer or the write fails.
+     */
+    T compute(long id, UnaryOperator<T> replacer, BiConsumer<T, T> onCommit);
+
+    T remove(long id);
+
+    /**
+     * Weakly consistent view of the stored entities.
+     */
+    Collection<T> values();
+
+    void forEach(BiConsumer<Long, T> action);
+
+    /**
+     * Ids of the stored entities above {@code afterId}, in ascending order. Like
+     * {@link #values()}, weakly consistent with concurrent writes.
+     */
+    PrimitiveIterator.OfLong idsAfter(long afterId);
+
+    int size();
+
+    void clear();
+
+    /**
+     * Whether every read, including the replaced entity passed to
+     * {@code onCommit}, is a fresh copy, so it always holds what was stored even
+     * if callers mutate the entities they got.
+     */
+    default boolean copiesOnRead() {
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.gym.storage;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Default store: entity objects held as they are in a concurrent hash map, plus
+ * a sorted set of their ids for walking them in id order. The set is updated
+ * inside the map's per-key atomic operations, so the two never disagree.
+ */
+class HeapEntityStore<T> implements EntityStore<T> {
+
+    private final Map<Long, T> entities = new ConcurrentHashMap<>();
+    private final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+
+    @Override
+    public T get(long id) {
+        return entities.get(id);
+    }
+
+    @Override
+    public T put(long id, T entity) {
+        return compute(id, current -> entity);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T compute(long id, UnaryOperator<T> replacer, BiConsumer<T, T> onCommit) {
+        Object[] previous = new Object[1];
+        entities.compute(id, (key, current) -> {
+            T next = replacer.apply(current);
+            previous[0] = current;
+            if (current == null && next != null) {
+                ids.add(key);
+            } else if (current != null && next == null) {
+                ids.remove(key);
+            }
+            onCommit.accept(current, next);
+            return next;
+        });
+        return (T) previous[0];
+    }
+
+    @Override
+    public T remove(long id) {
+        return compute(id, current -> null);
+    }
+
+    @Override
+    public Collection<T> values() {
+        return entities.values();
+    }
+
+    @Override
+    public void forEach(BiConsumer<Long, T> action) {
+        entities.forEach(action);
+    }
+
+    @Override
+    public PrimitiveIterator.OfLong idsAfter(long afterId) {
+        return ids.tailSet(afterId, false).stream().mapToLong(Long::longValue).iterator();
+    }
+
+    @Override
+    public int size() {
+        return entities.size();
+    }
+
+    @Override
+    public void clear() {
+        entities.clear();
+        ids.clear();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.gym.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Id counter of one entity type. Allocating an id or a block of ids is a single
+ * atomic add on a counter owned by the type, so concurrent inserts never share a
+ * lock or a hash bin with inserts of other types, and a batch of any size costs
+ * the same as a single id.
+ */
+class IdSequence {
+
+    private final AtomicLong last = new AtomicLong();
+
+    long next() {
+        return last.incrementAndGet();
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids and returns the first one.
+     */
+    long reserve(int count) {
+        return last.getAndAdd(count) + 1;
+    }
+
+    /**
+     * Makes sure ids up to {@code id} are never handed out.
+     */
+    void advanceTo(long id) {
+        long current = last.get();
+        while (current < id && !last.compareAndSet(current, id)) {
+            current = last.get();
+        }
+    }
+
+    long current() {
+        return last.get();
+    }
+
+    void reset() {
+        last.set(0);
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.gym.storage;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Ids under one index key, kept in ascending order so that pages can walk them
+ * from a cursor. Ids are held as primitives in immutable sorted blocks of up to
+ * {@value #BLOCK_SIZE}: a set that fits one block is just that array, a larger
+ * one a skip list of blocks keyed by their first id. A write copies one block
+ * and publishes the copy, so readers never lock and never see a block change;
+ * the size is counted, since the query planner compares candidate set sizes.
+ * <p>
+ * Writes must be serialized by the caller, as the owning index does per key.
+ * Iteration is weakly consistent with concurrent writes and never returns an id
+ * twice. The set is read-only to everyone but the owning index.
+ */
+final class IdSet extends AbstractSet<Long> {
+
+    private static final int BLOCK_SIZE = 64;
+    private static final long[] NONE = new long[0];
+
+    static final IdSet EMPTY = new IdSet();
+
+    // a sorted long[] of at most BLOCK_SIZE ids, or a ConcurrentNavigableMap<Long, long[]> of blocks
+    private volatile Object ids = NONE;
+    private volatile int size;
+
+    void addId(long id) {
+        Object current = ids;
+        if (current instanceof long[] small) {
+            long[] next = insert(small, id);
+            if (next == small) {
+                return;
+            }
+            if (next.length <= BLOCK_SIZE) {
+                ids = next;
+            } else {
+                ConcurrentNavigableMap<Long, long[]> blocks = new ConcurrentSkipListMap<>();
+                long[] low = Arrays.copyOfRange(next, 0, next.length / 2);
+                long[] high = Arrays.copyOfRange(next, next.length / 2, next.length);
+                blocks.put(low[0], low);
+                blocks.put(high[0], high);
+                ids = blocks;
+            }
+            size = size + 1;
+            return;
+        }
+        ConcurrentNavigableMap<Long, long[]> blocks = blocks(current);
+        Map.Entry<Long, long[]> entry = blocks.floorEntry(id);
+        if (entry == null) {
+            entry = blocks.firstEntry();
+        }
+        long[] next = insert(entry.getValue(), id);
+        if (next == entry.getValue()) {
+            return;
+        }
+        if (next.length > BLOCK_SIZE) {
+            long[] high = Arrays.copyOfRange(next, next.length / 2, next.length);
+            blocks.put(high[0], high);
+            next = Arrays.copyOf(next, next.length / 2);
+        }
+        replace(blocks, entry.getKey(), next);
+        size = size + 1;
+    }
+
+    void removeId(long id) {
+        Object current = ids;
+        if (current instanceof long[] small) {
+            long[] next = delete(small, id);
+            if (next != small) {
+                ids = next;
+                size = size - 1;
+            }
+            return;
+        }
+        ConcurrentNavigableMap<Long, long[]> blocks = blocks(current);
+        Map.Entry<Long, long[]> entry = blocks.floorEntry(id);
+        if (entry == null) {
+            return;
+        }
+        long[] next = delete(entry.getValue(), id);
+        if (next == entry.getValue()) {
+            return;
+        }
+        if (next.length == 0) {
+            blocks.remove(entry.getKey());
+        } else {
+            replace(blocks, entry.getKey(), next);
+        }
+        size = size - 1;
+    }
+
+    /**
+     * Ids above {@code afterId}, in ascending order.
+     */
+    PrimitiveIterator.OfLong idsAfter(long afterId) {
+        Object current = ids;
+        if (current instanceof long[] small) {
+            return new BlockIterator(List.of(small).iterator(), afterId);
+        }
+        ConcurrentNavigableMap<Long, long[]> blocks = blocks(current);
+        Long first = blocks.floorKey(afterId);
+        return new BlockIterator((first == null ? blocks : blocks.tailMap(first, true)).values().iterator(), afterId);
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof Long id)) {
+            return false;
+        }
+        Object current = ids;
+        long[] block;
+        if (current instanceof long[] small) {
+            block = small;
+        } else {
+            Map.Entry<Long, long[]> entry = blocks(current).floorEntry(id);
+            block = entry == null ? NONE : entry.getValue();
+        }
+        return Arrays.binarySearch(block, id) >= 0;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        PrimitiveIterator.OfLong iterator = idsAfter(Long.MIN_VALUE);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Long next() {
+                return iterator.nextLong();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Swaps in a changed block. Its first id may have changed, in which case the
+     * block is added under its new key before the old key is dropped; readers
+     * skip the ids they already returned.
+     */
+    private static void replace(ConcurrentNavigableMap<Long, long[]> blocks, long key, long[] block) {
+        blocks.put(block[0], block);
+        if (block[0] != key) {
+            blocks.remove(key);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ConcurrentNavigableMap<Long, long[]> blocks(Object ids) {
+        return (ConcurrentNavigableMap<Long, long[]>) ids;
+    }
+
+    private static long[] insert(long[] block, long id) {
+        int position = Arrays.binarySearch(block, id);
+        if (position >= 0) {
+            return block;
+        }
+        position = -position - 1;
+        long[] next = new long[block.length + 1];
+        System.arraycopy(block, 0, next, 0, position);
+        next[position] = id;
+        System.arraycopy(block, position, next, position + 1, block.length - position);
+        return next;
+    }
+
+    private static long[] delete(long[] block, long id) {
+        int position = Arrays.binarySearch(block, id);
+        if (position < 0) {
+            return block;
+        }
+        long[] next = new long[block.length - 1];
+        System.arraycopy(block, 0, next, 0, position);
+        System.arraycopy(block, position + 1, next, position, block.length - position - 1);
+        return next;
+    }
+
+    /**
+     * Walks blocks in order, returning only ids above the last one returned.
+     */
+    private static final class BlockIterator implements PrimitiveIterator.OfLong {
+
+        private final Iterator<long[]> blocks;
+        private long[] block = NONE;
+        private int position;
+        private long last;
+        private boolean ready;
+
+        BlockIterator(Iterator<long[]> blocks, long afterId) {
+            this.blocks = blocks;
+            this.last = afterId;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!ready) {
+                if (position < block.length) {
+                    if (block[position] > last) {
+                        ready = true;
+                    } else {
+                        position++;
+                    }
+                } else if (blocks.hasNext()) {
+                    block = blocks.next();
+                    int start = Arrays.binarySearch(block, last);
+                    position = start >= 0 ? start + 1 : -start - 1;
+                } else {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public long nextLong() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            ready = false;
+            last = block[position++];
+            return last;
+        }
+    }
+}
@@ -1,89 +1,930 @@
 package com.example.gym.storage;
 
+import com.example.gym.exception.EntityNotFoundException;
+import com.example.gym.exception.ScheduleConflictException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.model.Trainee;
 import com.example.gym.model.Trainer;
 import com.example.gym.model.Training;
 import com.example.gym.model.TrainingType;
 import com.example.gym.model.User;
+import com.example.gym.query.Page;
+import com.example.gym.query.Query;
+import com.example.gym.utils.EpochDays;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Component
 @Slf4j
 public class InMemoryStorage {
 
-    private final Map<String, Object> storage = new ConcurrentHashMap<>();
-    private final Map<Class<?>, Long> idCounters = new ConcurrentHashMap<>();
+    public static final String TRAINEE_ID_INDEX = "traineeId";
+    public static final String TRAINER_ID_INDEX = "trainerId";
+    public static final String TRAINING_TYPE_ID_INDEX = "trainingTypeId";
+    public static final String TRAINING_DATE_INDEX = "trainingDate";
+    public static final String TRAINEE_DATE_INDEX = "traineeId,trainingDate";
+    public static final String TRAINER_DATE_INDEX = "trainerId,trainingDate";
+    public static final String ACTIVE_INDEX = "active";
 
-    private String getNamespace(Class<?> entityClass) {
-        return entityClass.getSimpleName().toLowerCase();
+    private static final int PAGE_SORT_LIMIT = 4096;
+
+    private final Map<Class<?>, EntityPartition<?>> partitions = new ConcurrentHashMap<>();
+    private final UsernameIndex usernameIndex = new UsernameIndex();
+    private final Map<Long, TrainingType> sharedTrainingTypes = new ConcurrentHashMap<>();
+    private volatile ScanListener scanListener;
+    private final TrainingAggregates trainingAggregates = new TrainingAggregates();
+    private final TrainingSchedule trainingSchedule = new TrainingSchedule();
+    private final SpecializationIndex specializationIndex = new SpecializationIndex();
+    private volatile ColdTrainingTier coldTier;
+
+    /**
+     * Copy-on-write mode: storage keeps private instances that nobody else holds.
+     * Writes store a copy of the given entity and swap it in whole. Reads hand
+     * out copies, so callers can neither corrupt storage nor observe a write in
+     * progress. Costs one allocation per entity written or read.
+     */
+    @Value("${storage.copy-on-write:false}")
+    private boolean copyOnWrite;
+
+    public InMemoryStorage() {
+        withUserFields(registerPartition(Trainee.class))
+                .addField("dateOfBirth", trainee -> EpochDays.boxed(trainee.getBirthEpochDay()))
+                .addField("address", Trainee::getAddress);
+        withUserFields(registerPartition(Trainer.class))
+                .addField("trainerId", Trainer::getTrainerId)
+                .addField("specialization", Trainer::getSpecialization)
+                .addDerived(specializationIndex::update, specializationIndex::remove, false);
+        registerPartition(Training.class)
+                .addField("trainingId", Training::getTrainingId)
+                .addField(TRAINEE_ID_INDEX, Training::getTraineeId)
+                .addField(TRAINER_ID_INDEX, Training::getTrainerId)
+                .addField("trainingName", Training::getTrainingName)
+                .addField(TRAINING_TYPE_ID_INDEX, InMemoryStorage::trainingTypeId)
+                .addField(TRAINING_DATE_INDEX, InMemoryStorage::trainingEpochDay)
+                .addField("trainingDuration", Training::getTrainingDuration)
+                .addIndex(TRAINEE_ID_INDEX, Training::getTraineeId)
+                .addIndex(TRAINER_ID_INDEX, Training::getTrainerId)
+                .addIndex(TRAINING_TYPE_ID_INDEX, InMemoryStorage::trainingTypeId)
+                .addSortedIndex(TRAINING_DATE_INDEX, InMemoryStorage::trainingEpochDay)
+                .addSortedIndex(TRAINEE_DATE_INDEX, t -> ownerDayKey(t.getTraineeId(), t))
+                .addSortedIndex(TRAINER_DATE_INDEX, t -> ownerDayKey(t.getTrainerId(), t))
+                .addDerived(trainingAggregates::update, trainingAggregates::remove, true)
+                .addDerived(trainingSchedule::update, trainingSchedule::remove, false);
+        registerPartition(TrainingType.class)
+                .addField("trainingTypeId", TrainingType::getTrainingTypeId)
+                .addField("trainingTypeName", TrainingType::getTrainingTypeName);
+    }
+
+    private static <T extends User> EntityPartition<T> withUserFields(EntityPartition<T> partition) {
+        return partition
+                .addField("userId", User::getUserId)
+                .addField("firstName", User::getFirstName)
+                .addField("lastName", User::getLastName)
+                .addField("username", User::getUsername)
+                .addField(ACTIVE_INDEX, User::isActive)
+                .addIndex(ACTIVE_INDEX, User::isActive);
+    }
+
+    private <T> EntityPartition<T> registerPartition(Class<T> entityClass) {
+        EntityPartition<T> partition = new EntityPartition<>(entityClass);
+        partitions.put(entityClass, partition);
+        return partition;
+    }
+
+    static Long trainingTypeId(Training training) {
+        return training.getTrainingType() == null ? null : training.getTrainingType().getTrainingTypeId();
+    }
+
+    private static Long trainingEpochDay(Training training) {
+        return EpochDays.boxed(training.getTrainingEpochDay());
+    }
+
+    private static OwnerDayKey ownerDayKey(Long ownerId, Training training) {
+        Long epochDay = trainingEpochDay(training);
+        return ownerId == null || epochDay == null ? null : new OwnerDayKey(ownerId, epochDay);
+    }
+
+    public void setScanListener(ScanListener scanListener) {
+        this.scanListener = scanListener;
+    }
+
+    /**
+     * Selects where trainings are kept: {@code heap} (default) or {@code offheap},
+     * which stores them in columnar direct buffers and builds a fresh object per
+     * read. Must be chosen before any training is stored. Since off-heap reads are
+     * copies, the indexes, totals and schedule then work out what to undo from the
+     * replaced training instead of remembering it per id.
+     */
+    @Value("${storage.training.backend:heap}")
+    public void setTrainingBackend(String backend) {
+        switch (backend.trim().toLowerCase(Locale.ROOT)) {
+            case "heap" -> {
+            }
+            case "offheap" -> {
+                partition(Training.class).useStore(new OffHeapTrainingStore());
+                trainingAggregates.untrack(id -> {
+                    ColdTrainingTier tier = coldTier;
+                    return tier == null ? null : tier.get(id);
+                });
+                trainingSchedule.untrack();
+            }
+            default -> throw new IllegalArgumentException("Unknown training storage backend: " + backend);
+        }
+    }
+
+    void attachColdTier(ColdTrainingTier coldTier) {
+        EntityPartition<Training> partition = partition(Training.class);
+        coldTier.forEach(training -> {
+            if (partition.get(training.getTrainingId()) == null) {
+                trainingAggregates.addArchived(training.getTrainingId(), training);
+            }
+        });
+        this.coldTier = coldTier;
+    }
+
+    /**
+     * Incrementally maintained training totals, covering both storage tiers.
+     */
+    public TrainingAggregates trainingAggregates() {
+        return trainingAggregates;
     }
 
-    private String buildKey(Class<?> entityClass, Object id) {
-        return getNamespace(entityClass) + ":" + id;
+    /**
+     * Interval index of booked trainings per trainer and trainee.
+     */
+    public TrainingSchedule trainingSchedule() {
+        return trainingSchedule;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> EntityPartition<T> partition(Class<T> entityClass) {
+        return (EntityPartition<T>) partitions.computeIfAbsent(entityClass, EntityPartition::new);
     }
 
     public Long generateId(Class<?> entityClass) {
-        return idCounters.merge(entityClass, 1L, Long::sum);
+        return partition(entityClass).ids().next();
+    }
+
+    /**
+     * Reserves {@code count} consecutive ids and returns the first one.
+     */
+    public long reserveIds(Class<?> entityClass, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Count must be positive: " + count);
+        }
+        return partition(entityClass).ids().reserve(count);
     }
 
     public void initializeIdCounter(Class<?> entityClass, Long id) {
-        idCounters.merge(entityClass, id, Long::max);
+        partition(entityClass).ids().advanceTo(id);
     }
 
-    public void put(Class<?> entityClass, Object id, Object entity) {
-        String key = buildKey(entityClass, id);
-        storage.put(key, entity);
-        log.debug("Saved entity with key: {}", key);
+    public long getIdCounter(Class<?> entityClass) {
+        return partition(entityClass).ids().current();
     }
 
-    @SuppressWarnings("unchecked")
-    public <T> Optional<T> get(Class<T> entityClass, Object id) {
-        String key = buildKey(entityClass, id);
-        Object entity = storage.get(key);
-        if (entity != null && entityClass.isInstance(entity)) {
-            return Optional.of((T) entity);
+    public <T> void put(Class<T> entityClass, long id, Object entity) {
+        store(partition(entityClass), id, entityClass.cast(entity));
+        supersedeArchived(entityClass, id);
+        log.debug("Saved {} with id: {}", entityClass.getSimpleName(), id);
+    }
+
+    /**
+     * Stores a batch of entities keyed by id, all or nothing. Usernames of the
+     * whole batch are claimed up front, so a conflict rejects the batch before
+     * anything is stored; if storing fails part way, the entities already stored
+     * are put back to what they were. Archived trainings the batch supersedes stay
+     * in the cold tier until the whole batch is in.
+     */
+    public <T> void putAll(Class<T> entityClass, Map<Long, ? extends T> entities) {
+        EntityPartition<T> partition = partition(entityClass);
+        Runnable releaseUsernames = User.class.isAssignableFrom(entityClass)
+                ? usernameIndex.claimAll(entities.values())
+                : () -> {
+                };
+        Map<Long, T> replaced = new LinkedHashMap<>();
+        try {
+            entities.forEach((id, entity) -> replaced.put(id, store(partition, id, entity)));
+        } catch (RuntimeException e) {
+            List<Long> stored = new ArrayList<>(replaced.keySet());
+            Collections.reverse(stored);
+            for (Long id : stored) {
+                undoStore(partition, id, replaced.get(id));
+            }
+            releaseUsernames.run();
+            throw e;
+        }
+        entities.keySet().forEach(id -> supersedeArchived(entityClass, id));
+        log.debug("Saved {} {} entities", entities.size(), entityClass.getSimpleName());
+    }
+
+    /**
+     * Captures what is stored under {@code ids} and returns the step that puts it
+     * back: entities are stored again as they are now, and ids that hold none are
+     * deleted. Lets a writer take back a change it could not make durable.
+     */
+    public <T> Runnable undoFor(Class<T> entityClass, Collection<Long> ids) {
+        EntityPartition<T> partition = partition(entityClass);
+        ColdTrainingTier tier = coldTierFor(entityClass);
+        Map<Long, T> stored = new LinkedHashMap<>();
+        List<Long> absent = new ArrayList<>();
+        for (long id : ids) {
+            T entity = find(partition, tier, id);
+            if (entity == null) {
+                absent.add(id);
+            } else {
+                stored.put(id, copy(entity));
+            }
+        }
+        return () -> {
+            if (!absent.isEmpty()) {
+                deleteAll(entityClass, absent);
+            }
+            if (!stored.isEmpty()) {
+                putAll(entityClass, stored);
+            }
+        };
+    }
+
+    /**
+     * Puts back what a failed batch replaced under {@code id}. A training that
+     * was only archived before gets its totals back from the cold tier.
+     */
+    private <T> void undoStore(EntityPartition<T> partition, long id, T previous) {
+        if (previous != null) {
+            store(partition, id, previous);
+            return;
+        }
+        if (partition.remove(id) instanceof User user) {
+            usernameIndex.release(user);
+        }
+        ColdTrainingTier tier = coldTierFor(partition.getEntityClass());
+        Training archived = tier == null ? null : tier.get(id);
+        if (archived != null) {
+            trainingAggregates.addArchived(id, archived);
         }
-        return Optional.empty();
+    }
+
+    /**
+     * Drops the archived record of a training that was just stored on heap and
+     * so supersedes it.
+     */
+    private void supersedeArchived(Class<?> entityClass, long id) {
+        ColdTrainingTier tier = coldTierFor(entityClass);
+        if (tier != null) {
+            tier.remove(id);
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} active trainers that pass {@code filter} and whose
+     * specialization shares words with {@code text}, such as a training type name.
+     * Trainers sharing more words come first, then those with fewer trainings
+     * booked, then lower ids. Candidates come from the specialization index, so
+     * trainers are never scanned. The index may lag a trainer that was changed in
+     * place and not yet stored again, so each loaded trainer is checked again.
+     */
+    public List<Trainer> matchTrainers(String text, LongPredicate filter, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        List<Map.Entry<Long, Integer>> ranked = new ArrayList<>(specializationIndex.match(text).entrySet());
+        ranked.sort(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                .thenComparingLong(match -> trainingAggregates.forTrainer(match.getKey()).count())
+                .thenComparing(Map.Entry.comparingByKey()));
+        Set<String> words = SpecializationIndex.words(text);
+        EntityPartition<Trainer> partition = partition(Trainer.class);
+        List<Trainer> matched = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (Map.Entry<Long, Integer> match : ranked) {
+            if (matched.size() == limit) {
+                break;
+            }
+            Trainer trainer = partition.get(match.getKey());
+            if (trainer != null && trainer.isActive()
+                    && !Collections.disjoint(words, SpecializationIndex.words(trainer.getSpecialization()))
+                    && filter.test(match.getKey())) {
+                matched.add(copyOut(trainer));
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * Stores a training only if neither its trainer nor its trainee has another
+     * training overlapping it. The check and the write are atomic with respect to
+     * other scheduled puts for the same trainer or trainee.
+     *
+     * @throws ScheduleConflictException if the training overlaps a booked one
+     */
+    public void putScheduled(long id, Training training) {
+        trainingSchedule.withLocks(training, () -> {
+            List<Long> conflicts = trainingSchedule.conflicts(training);
+            if (!conflicts.isEmpty()) {
+                throw new ScheduleConflictException(id, conflicts);
+            }
+            put(Training.class, id, training);
+        });
+    }
+
+    /**
+     * Stores a batch of trainings keyed by their ids, all or nothing, only if none
+     * of them overlaps a booked training or another one in the batch. Like
+     * {@link #putScheduled}, the check and the write are atomic with respect to
+     * other scheduled puts for the same trainers and trainees.
+     *
+     * @throws ScheduleConflictException if a training in the batch overlaps another
+     */
+    public void putAllScheduled(Map<Long, ? extends Training> trainings) {
+        trainingSchedule.withLocks(List.copyOf(trainings.values()), () -> {
+            trainingSchedule.checkBatch(trainings);
+            putAll(Training.class, trainings);
+        });
+    }
+
+    /**
+     * Compare-and-set update of a stored user: the replacement is swapped in only
+     * if the stored version is still {@code expectedVersion}, and is stored with the
+     * next version. Readers are never blocked and see either the old or the new
+     * instance, never a partly updated one.
+     *
+     * @throws EntityNotFoundException if nothing is stored under {@code id}
+     * @throws VersionConflictException if another writer got there first
+     */
+    public <T extends User> T replace(Class<T> entityClass, long id, long expectedVersion, T replacement) {
+        T stored = copyIn(replacement);
+        T previous = partition(entityClass).replace(id, current -> {
+            if (current == null) {
+                throw new EntityNotFoundException(entityClass.getSimpleName(), id);
+            }
+            if (version(current) != expectedVersion) {
+                throw new VersionConflictException(entityClass.getSimpleName(), id, expectedVersion, version(current));
+            }
+            usernameIndex.claim(stored);
+            stored.setVersion(expectedVersion + 1);
+            return stored;
+        });
+        replacement.setVersion(expectedVersion + 1);
+        if (previous != stored) {
+            usernameIndex.release(previous);
+        }
+        log.debug("Replaced {} with id: {} at version {}", entityClass.getSimpleName(), id, expectedVersion + 1);
+        return replacement;
+    }
+
+    private static long version(User user) {
+        return user.getVersion() == null ? 0 : user.getVersion();
+    }
+
+    private <T> T store(EntityPartition<T> partition, long id, T entity) {
+        if (entity instanceof User user && user.getVersion() == null) {
+            user.setVersion(0L);
+        }
+        T stored = copyIn(entity);
+        if (stored instanceof User user) {
+            usernameIndex.claim(user);
+        }
+        if (stored instanceof Training training) {
+            stored = partition.getEntityClass().cast(withSharedType(training));
+        }
+        partition.ids().advanceTo(id);
+        T previous = partition.put(id, stored);
+        if (previous instanceof User user && previous != stored) {
+            usernameIndex.release(user);
+        }
+        if (stored instanceof TrainingType trainingType) {
+            shareTrainingType(id, trainingType);
+        }
+        if (stored instanceof Training training) {
+            TrainingType type = training.getTrainingType();
+            TrainingType shared = type == null || type.getTrainingTypeId() == null
+                    ? null : sharedTrainingTypes.get(type.getTrainingTypeId());
+            if (shared != null && shared != type) {
+                // the type was re-stored while this training was being written
+                useSharedTrainingType(id, shared);
+            }
+        }
+        return previous;
+    }
+
+    /**
+     * Returns the training to store, referencing the shared instance of its type.
+     * The caller's training is left alone: unless storage already owns it, as in
+     * copy-on-write mode, a copy carrying the shared type is stored instead.
+     */
+    private Training withSharedType(Training training) {
+        TrainingType shared = canonicalTrainingType(training.getTrainingType());
+        if (shared == training.getTrainingType()) {
+            return training;
+        }
+        Training result = copyOnWrite ? training : training.copy();
+        result.setTrainingType(shared);
+        return result;
+    }
+
+    /**
+     * Returns the shared instance for the given training type, so that trainings
+     * reference one object per type instead of each carrying its own copy. The
+     * shared instance is a read-only copy owned by storage, taken from the stored
+     * type, or from the training itself while the type is not stored yet.
+     */
+    private TrainingType canonicalTrainingType(TrainingType trainingType) {
+        if (trainingType == null || trainingType.getTrainingTypeId() == null) {
+            return trainingType;
+        }
+        return sharedTrainingTypes.computeIfAbsent(trainingType.getTrainingTypeId(), typeId -> {
+            TrainingType stored = partition(TrainingType.class).get(typeId);
+            return new SharedTrainingType(stored != null ? stored : trainingType);
+        });
+    }
+
+    /**
+     * Makes a newly stored training type the shared instance for its id. If it
+     * differs from the one trainings share so far, those trainings are moved over.
+     */
+    private void shareTrainingType(long typeId, TrainingType trainingType) {
+        boolean[] changed = {false};
+        TrainingType shared = sharedTrainingTypes.compute(typeId, (id, current) -> {
+            if (current != null && current.equals(trainingType)) {
+                return current;
+            }
+            changed[0] = current != null;
+            return new SharedTrainingType(trainingType);
+        });
+        if (changed[0]) {
+            partition(Training.class).findIndex(TRAINING_TYPE_ID_INDEX).ids(typeId)
+                    .forEach(trainingId -> useSharedTrainingType(trainingId, shared));
+        }
+    }
+
+    private void useSharedTrainingType(long trainingId, TrainingType shared) {
+        partition(Training.class).replace(trainingId, current -> {
+            if (current == null || current.getTrainingType() == shared
+                    || !shared.getTrainingTypeId().equals(trainingTypeId(current))) {
+                return current;
+            }
+            Training updated = current.copy();
+            updated.setTrainingType(shared);
+            return updated;
+        });
+    }
+
+    private <T> T copyIn(T entity) {
+        return copyOnWrite ? copy(entity) : entity;
+    }
+
+    private <T> T copyOut(T entity) {
+        if (!copyOnWrite || entity == null) {
+            return entity;
+        }
+        T copy = copy(entity);
+        if (copy instanceof Training training && training.getTrainingType() != null) {
+            training.setTrainingType(training.getTrainingType().copy());
+        }
+        return copy;
+    }
+
+    private <T> List<T> copyOut(List<T> entities) {
+        if (copyOnWrite) {
+            entities.replaceAll(this::copyOut);
+        }
+        return entities;
     }
 
     @SuppressWarnings("unchecked")
+    private static <T> T copy(T entity) {
+        return (T) switch (entity) {
+            case User user -> user.copy();
+            case Training training -> training.copy();
+            case TrainingType trainingType -> trainingType.copy();
+            default -> throw new IllegalArgumentException(
+                    "Cannot copy " + entity.getClass().getSimpleName());
+        };
+    }
+
+    public <T> Optional<T> get(Class<T> entityClass, long id) {
+        return Optional.ofNullable(copyOut(find(partition(entityClass), coldTierFor(entityClass), id)));
+    }
+
+    /**
+     * Looks up an entity on heap and then, for trainings, in the cold tier.
+     */
+    private <T> T find(EntityPartition<T> partition, ColdTrainingTier tier, long id) {
+        T entity = partition.get(id);
+        if (entity == null && tier != null) {
+            entity = partition.getEntityClass().cast(fromColdTier(tier.get(id)));
+        }
+        return entity;
+    }
+
+    private ColdTrainingTier coldTierFor(Class<?> entityClass) {
+        return entityClass == Training.class ? coldTier : null;
+    }
+
+    /**
+     * Returns the archived trainings that pass {@code filter}, reading only
+     * {@code ids} if given and scanning the tier otherwise. Trainings also on heap
+     * are skipped, as the heap copy is the current one.
+     */
+    private <T> List<T> fromColdTier(ColdTrainingTier tier, EntityPartition<T> partition,
+                                     Collection<Long> ids, Predicate<T> filter) {
+        List<T> matched = new ArrayList<>();
+        Consumer<Training> collect = training -> {
+            if (partition.get(training.getTrainingId()) == null) {
+                T entity = partition.getEntityClass().cast(fromColdTier(training));
+                if (filter.test(entity)) {
+                    matched.add(entity);
+                }
+            }
+        };
+        if (ids == null) {
+            tier.forEach(collect);
+        } else {
+            for (Long id : ids) {
+                Training training = tier.get(id);
+                if (training != null) {
+                    collect.accept(training);
+                }
+            }
+        }
+        return matched;
+    }
+
     public <T> List<T> getByCondition(Class<T> entityClass, Predicate<T> condition) {
-        String namespace = getNamespace(entityClass);
-        return storage.entrySet().stream()
-                .filter(e -> e.getKey().startsWith(namespace + ":"))
-                .map(Map.Entry::getValue)
-                .filter(entityClass::isInstance)
-                .map(obj -> (T) obj)
-                .filter(condition)
-                .toList();
+        long start = System.nanoTime();
+        EntityPartition<T> partition = partition(entityClass);
+        List<T> matched = new ArrayList<>();
+        int visited = 0;
+        for (T entity : partition.values()) {
+            visited++;
+            if (condition.test(entity)) {
+                matched.add(copyOut(entity));
+            }
+        }
+        ColdTrainingTier tier = coldTierFor(entityClass);
+        if (tier != null) {
+            visited += tier.size();
+            fromColdTier(tier, partition, null, condition).forEach(entity -> matched.add(copyOut(entity)));
+        }
+        ScanListener listener = scanListener;
+        if (listener != null) {
+            listener.onScan(entityClass, visited, matched.size(), System.nanoTime() - start);
+        }
+        return Collections.unmodifiableList(matched);
+    }
+
+    /**
+     * Returns the entities matching {@code query}, reading candidates from secondary
+     * indexes where the query allows and scanning the partition otherwise. Archived
+     * trainings are answered from the cold tier's id indexes the same way.
+     *
+     * @throws IllegalArgumentException if the query refers to an unknown field
+     */
+    public <T> List<T> query(Class<T> entityClass, Query query) {
+        EntityPartition<T> partition = partition(entityClass);
+        QueryPlanner.validate(partition, query);
+        Collection<Long> candidates = QueryPlanner.candidates(partition, query);
+        if (candidates == null) {
+            return getByCondition(entityClass, entity -> QueryPlanner.matches(partition, query, entity));
+        }
+        List<T> matched = new ArrayList<>(candidates.size());
+        for (Long id : candidates) {
+            T entity = partition.get(id);
+            if (entity != null && QueryPlanner.matches(partition, query, entity)) {
+                matched.add(copyOut(entity));
+            }
+        }
+        ColdTrainingTier tier = coldTierFor(entityClass);
+        if (tier != null) {
+            fromColdTier(tier, partition, QueryPlanner.candidates(tier::findIndex, query),
+                    entity -> QueryPlanner.matches(partition, query, entity))
+                    .forEach(entity -> matched.add(copyOut(entity)));
+        }
+        return matched;
+    }
+
+    /**
+     * Lazily evaluated view of the entities matching {@code query}; nothing is
+     * collected up front, so consumers that stop early or write results out as
+     * they go use constant memory. Like iteration over the underlying maps, the
+     * stream is weakly consistent with concurrent writes. Matching archived
+     * trainings come last, and are only read once the stream gets to them.
+     */
+    public <T> Stream<T> stream(Class<T> entityClass, Query query) {
+        EntityPartition<T> partition = partition(entityClass);
+        QueryPlanner.validate(partition, query);
+        Collection<Long> candidates = QueryPlanner.candidates(partition, query);
+        Predicate<T> matches = entity -> QueryPlanner.matches(partition, query, entity);
+        Stream<T> entities = candidates == null
+                ? partition.values().stream()
+                : candidates.stream().map(partition::get).filter(Objects::nonNull);
+        ColdTrainingTier tier = coldTierFor(entityClass);
+        Stream<T> hot = entities.filter(matches);
+        if (tier != null) {
+            hot = Stream.concat(hot, Stream.of(query).flatMap(q ->
+                    fromColdTier(tier, partition, QueryPlanner.candidates(tier::findIndex, q), matches).stream()));
+        }
+        return hot.map(this::copyOut);
+    }
+
+    public <T> Stream<T> stream(Class<T> entityClass, Predicate<T> condition) {
+        EntityPartition<T> partition = partition(entityClass);
+        Stream<T> entities = partition.values().stream().filter(condition);
+        ColdTrainingTier tier = coldTierFor(entityClass);
+        if (tier != null) {
+            entities = Stream.concat(entities, Stream.of(condition).flatMap(c ->
+                    fromColdTier(tier, partition, null, c).stream()));
+        }
+        return entities.map(this::copyOut);
+    }
+
+    /**
+     * Returns up to {@code limit} entities matching {@code query} (all entities if
+     * null) with ids greater than {@code afterId}, in id order. Pages are stable
+     * under concurrent inserts and deletes, unlike offsets. Ids are walked in order
+     * from the cursor and the walk stops as soon as the page is full: the ids under
+     * the query's index keys where it has equality or {@code in} constraints, and
+     * otherwise the stored ids, so gaps in the id space cost nothing. Only other
+     * candidate sets of at most {@value #PAGE_SORT_LIMIT} ids, e.g. from a narrow
+     * date range, are sorted instead. Archived trainings are merged in by id.
+     */
+    public <T> Page<T> page(Class<T> entityClass, Query query, Long afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        EntityPartition<T> partition = partition(entityClass);
+        if (query != null) {
+            QueryPlanner.validate(partition, query);
+        }
+        long from = afterId == null ? 0 : afterId;
+        PrimitiveIterator.OfLong ids = pageIds(partition::findIndex, query, from, () -> partition.idsAfter(from));
+        ColdTrainingTier tier = coldTierFor(entityClass);
+        if (tier != null) {
+            ids = new MergedIds(ids, pageIds(tier::findIndex, query, from, () -> tier.idsAfter(from)));
+        }
+        List<T> items = new ArrayList<>(Math.min(limit, 1024));
+        long lastId = from;
+        while (ids.hasNext() && items.size() < limit) {
+            long id = ids.nextLong();
+            T entity = find(partition, tier, id);
+            if (entity != null && (query == null || QueryPlanner.matches(partition, query, entity))) {
+                items.add(copyOut(entity));
+                lastId = id;
+            }
+        }
+        return new Page<>(items, items.size() == limit && ids.hasNext() ? lastId : null);
+    }
+
+    private static PrimitiveIterator.OfLong pageIds(Function<String, ? extends SecondaryIndex<?>> indexes, Query query,
+                                                    long from, Supplier<PrimitiveIterator.OfLong> stored) {
+        if (query == null) {
+            return stored.get();
+        }
+        PrimitiveIterator.OfLong ordered = QueryPlanner.idsAfter(indexes, query, from);
+        if (ordered != null) {
+            return ordered;
+        }
+        Collection<Long> candidates = QueryPlanner.candidates(indexes, query);
+        if (candidates == null || candidates.size() > PAGE_SORT_LIMIT) {
+            return stored.get();
+        }
+        return candidates.stream().mapToLong(Long::longValue).filter(id -> id > from).sorted().iterator();
+    }
+
+    /**
+     * Returns the entities with the given key in a hash index. For trainings, the
+     * trainee, trainer and type id indexes include archived trainings.
+     */
+    public <T> List<T> getByIndex(Class<T> entityClass, String indexName, Object key) {
+        EntityPartition<T> partition = partition(entityClass);
+        List<T> entities = partition.findByIndex(indexName, key);
+        ColdTrainingTier tier = coldTierFor(entityClass);
+        SecondaryIndex<Training> coldIndex = tier == null ? null : tier.findIndex(indexName);
+        if (coldIndex != null) {
+            entities.addAll(fromColdTier(tier, partition, coldIndex.ids(key), entity -> true));
+        }
+        return copyOut(entities);
+    }
+
+    /**
+     * Returns the entities with index keys between the bounds, in key order. Range
+     * queries on the training date indexes include trainings in the cold tier.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> getByRange(Class<T> entityClass, String indexName,
+                                  Object fromInclusive, Object toInclusive) {
+        List<T> entities = partition(entityClass).findByRange(indexName, fromInclusive, toInclusive);
+        ColdTrainingTier tier = coldTier;
+        if (tier != null && entityClass == Training.class) {
+            entities = (List<T>) withColdRange(tier, (List<Training>) entities, indexName, fromInclusive, toInclusive);
+        }
+        return copyOut(entities);
+    }
+
+    private List<Training> withColdRange(ColdTrainingTier tier, List<Training> hot, String indexName,
+                                         Object fromInclusive, Object toInclusive) {
+        Function<Training, Comparable<Object>> key = coldRangeKey(indexName);
+        if (key == null) {
+            return hot;
+        }
+        EntityPartition<Training> partition = partition(Training.class);
+        List<Training> cold = tier.scan(
+                dayBound(fromInclusive, toInclusive, Long.MIN_VALUE),
+                dayBound(toInclusive, fromInclusive, Long.MAX_VALUE),
+                training -> partition.get(training.getTrainingId()) == null
+                        && inRange(key.apply(training), fromInclusive, toInclusive));
+        if (cold.isEmpty()) {
+            return hot;
+        }
+        List<Training> merged = new ArrayList<>(cold.size() + hot.size());
+        cold.forEach(training -> merged.add(fromColdTier(training)));
+        merged.addAll(hot);
+        merged.sort(Comparator.comparing(key));
+        return merged;
     }
 
-    public void delete(Class<?> entityClass, Object id) {
-        String key = buildKey(entityClass, id);
-        storage.remove(key);
-        log.debug("Deleted entity with key: {}", key);
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Function<Training, Comparable<Object>> coldRangeKey(String indexName) {
+        Function<Training, ? extends Comparable> key = switch (indexName) {
+            case TRAINING_DATE_INDEX -> InMemoryStorage::trainingEpochDay;
+            case TRAINEE_DATE_INDEX -> training -> ownerDayKey(training.getTraineeId(), training);
+            case TRAINER_DATE_INDEX -> training -> ownerDayKey(training.getTrainerId(), training);
+            default -> null;
+        };
+        return (Function<Training, Comparable<Object>>) key;
+    }
+
+    /**
+     * Narrows a range bound to an epoch day, so the cold tier can skip segments;
+     * composite bounds only narrow when both ends name the same owner.
+     */
+    private static long dayBound(Object bound, Object otherBound, long open) {
+        if (bound instanceof Number day) {
+            return day.longValue();
+        }
+        if (bound instanceof OwnerDayKey key && otherBound instanceof OwnerDayKey other
+                && key.ownerId() == other.ownerId()) {
+            return key.epochDay();
+        }
+        return open;
+    }
+
+    private static boolean inRange(Comparable<Object> key, Object fromInclusive, Object toInclusive) {
+        return key != null
+                && (fromInclusive == null || key.compareTo(fromInclusive) >= 0)
+                && (toInclusive == null || key.compareTo(toInclusive) <= 0);
+    }
+
+    private Training fromColdTier(Training training) {
+        if (training != null) {
+            training.setTrainingType(canonicalTrainingType(training.getTrainingType()));
+        }
+        return training;
+    }
+
+    /**
+     * Moves trainings dated before {@code cutoffEpochDay} from the heap partition to
+     * the cold tier. They are written to the tier first and then removed from the
+     * heap, unless they were changed in between; at no point is a training missing
+     * from both. Moved trainings leave the schedule, as they lie in the past, but
+     * stay in the aggregates. Returns the number of trainings moved.
+     */
+    int archiveTrainings(long cutoffEpochDay) {
+        ColdTrainingTier tier = coldTier;
+        if (tier == null) {
+            throw new IllegalStateException("No cold tier attached");
+        }
+        EntityPartition<Training> partition = partition(Training.class);
+        List<Training> old = partition.findByRange(TRAINING_DATE_INDEX, null, cutoffEpochDay - 1);
+        if (old.isEmpty()) {
+            return 0;
+        }
+        tier.append(old);
+        int moved = 0;
+        for (Training training : old) {
+            if (partition.remove(training.getTrainingId(), training)) {
+                moved++;
+            } else {
+                tier.remove(training.getTrainingId());
+            }
+        }
+        return moved;
+    }
+
+    public <T> void forEach(Class<T> entityClass, Consumer<? super T> action) {
+        partition(entityClass).values().forEach(action);
+    }
+
+    public void delete(Class<?> entityClass, long id) {
+        deleteOne(partition(entityClass), id);
+        log.debug("Deleted {} with id: {}", entityClass.getSimpleName(), id);
+    }
+
+    public void deleteAll(Class<?> entityClass, Collection<Long> ids) {
+        EntityPartition<?> partition = partition(entityClass);
+        for (long id : ids) {
+            deleteOne(partition, id);
+        }
+        log.debug("Deleted {} {} entities", ids.size(), entityClass.getSimpleName());
+    }
+
+    /**
+     * Deletes {@code id} from the heap and, for trainings, from the cold tier.
+     * The totals of an archived training only go with it if no heap version,
+     * which counted instead, was deleted.
+     */
+    private void deleteOne(EntityPartition<?> partition, long id) {
+        Object removed = partition.remove(id);
+        if (removed instanceof User user) {
+            usernameIndex.release(user);
+        }
+        ColdTrainingTier tier = coldTierFor(partition.getEntityClass());
+        if (tier != null && tier.contains(id)) {
+            if (removed == null) {
+                trainingAggregates.remove(id, tier.get(id));
+            }
+            tier.remove(id);
+        }
     }
 
     public boolean existsByUsername(String username) {
-        return storage.values().stream()
-                .filter(obj -> obj instanceof User)
-                .map(obj -> (User) obj)
-                .anyMatch(user -> username.equals(user.getUsername()));
+        return usernameIndex.isTaken(username);
+    }
+
+    public boolean reserveUsername(String username) {
+        return usernameIndex.reserve(username);
+    }
+
+    public void cancelUsernameReservation(String username) {
+        usernameIndex.cancelReservation(username);
+    }
+
+    public Optional<User> findByUsername(String username) {
+        return usernameIndex.find(username).map(this::copyOut);
+    }
+
+    public Set<Class<?>> entityClasses() {
+        return Collections.unmodifiableSet(partitions.keySet());
+    }
+
+    public int size(Class<?> entityClass) {
+        return partition(entityClass).size();
     }
 
     public int size() {
-        return storage.size();
+        return partitions.values().stream()
+                .mapToInt(EntityPartition::size)
+                .sum();
     }
 
     public void clear() {
-        storage.clear();
-        idCounters.clear();
+        partitions.values().forEach(EntityPartition::clear);
+        usernameIndex.clear();
+        sharedTrainingTypes.clear();
+        trainingAggregates.clear();
+        trainingSchedule.clear();
+        specializationIndex.clear();
+    }
+
+    /**
+     * Training type instance shared by many trainings. It cannot be changed in
+     * place, since that would rename the type for all of them at once. Only the
+     * trainings storage owns carry it, never the ones callers passed in.
+     */
+    private static final class SharedTrainingType extends TrainingType {
+
+        SharedTrainingType(TrainingType trainingType) {
+            super(trainingType.getTrainingTypeId(), trainingType.getTrainingTypeName());
+        }
+
+        @Override
+        public void setTrainingTypeId(Long trainingTypeId) {
+            throw new UnsupportedOperationException("Shared training types are read-only");
+        }
+
+        @Override
+        public void setTrainingTypeName(String trainingTypeName) {
+            throw new UnsupportedOperationException("Shared training types are read-only");
+        }
     }
 }
@@ -0,0 +1,57 @@
+package com.example.gym.storage;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Merges two ascending id iterators into one, dropping ids present in both.
+ */
+final class MergedIds implements PrimitiveIterator.OfLong {
+
+    private final PrimitiveIterator.OfLong first;
+    private final PrimitiveIterator.OfLong second;
+    private long nextFirst;
+    private long nextSecond;
+    private boolean hasFirst;
+    private boolean hasSecond;
+
+    MergedIds(PrimitiveIterator.OfLong first, PrimitiveIterator.OfLong second) {
+        this.first = first;
+        this.second = second;
+        advanceFirst();
+        advanceSecond();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return hasFirst || hasSecond;
+    }
+
+    @Override
+    public long nextLong() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        long next;
+        if (hasFirst && (!hasSecond || nextFirst <= nextSecond)) {
+            next = nextFirst;
+            advanceFirst();
+        } else {
+            next = nextSecond;
+        }
+        if (hasSecond && nextSecond == next) {
+            advanceSecond();
+        }
+        return next;
+    }
+
+    private void advanceFirst() {
+        hasFirst = first.hasNext();
+        nextFirst = hasFirst ? first.nextLong() : 0;
+    }
+
+    private void advanceSecond() {
+        hasSecond = second.hasNext();
+        nextSecond = hasSecond ? second.nextLong() : 0;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.gym.storage;
+
+/**
+ * Composite index key ordering trainings of one trainee or trainer by epoch day.
+ */
+public record OwnerDayKey(long ownerId, long epochDay) implements Comparable<OwnerDayKey> {
+
+    @Override
+    public int compareTo(OwnerDayKey other) {
+        int byOwner = Long.compare(ownerId, other.ownerId);
+        return byOwner != 0 ? byOwner : Long.compare(epochDay, other.epochDay);
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.gym.storage;
+
+import com.example.gym.query.Query;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Answers a {@link Query} against one partition. Constraints on indexed fields
+ * produce candidate ids straight from the index: equality and {@code in} from any
+ * index, ranges from sorted ones. Conjunctions use their most selective indexed
+ * part and disjunctions the union of their parts. Candidates are always
+ * re-checked against the full query, so only the candidate set depends on the
+ * plan. A query with no usable index falls back to a scan.
+ */
+final class QueryPlanner {
+
+    private QueryPlanner() {
+    }
+
+    /**
+     * Returns the ids that may match, or null if the query needs a full scan.
+     */
+    static Collection<Long> candidates(EntityPartition<?> partition, Query query) {
+        return candidates(partition::findIndex, query);
+    }
+
+    /**
+     * Like {@link #candidates(EntityPartition, Query)}, for any set of indexes
+     * looked up by field name; a null lookup result means the field is unindexed.
+     */
+    static Collection<Long> candidates(Function<String, ? extends SecondaryIndex<?>> indexes, Query query) {
+        return switch (query) {
+            case Query.Eq eq -> {
+                SecondaryIndex<?> index = indexes.apply(eq.field());
+                yield index == null ? null : index.ids(normalize(eq.value()));
+            }
+            case Query.In in -> {
+                SecondaryIndex<?> index = indexes.apply(in.field());
+                if (index == null) {
+                    yield null;
+                }
+                Set<Long> ids = new HashSet<>();
+                in.values().forEach(value -> ids.addAll(index.ids(normalize(value))));
+                yield ids;
+            }
+            case Query.Range range -> indexes.apply(range.field()) instanceof SortedSecondaryIndex<?> sorted
+                    ? sorted.idsInRange(normalize(range.from()), normalize(range.to()))
+                    : null;
+            case Query.And and -> {
+                Collection<Long> best = null;
+                for (Query part : and.parts()) {
+                    Collection<Long> ids = candidates(indexes, part);
+                    if (ids != null && (best == null || ids.size() < best.size())) {
+                        best = ids;
+                    }
+                }
+                yield best;
+            }
+            case Query.Or or -> {
+                Set<Long> ids = new HashSet<>();
+                for (Query part : or.parts()) {
+                    Collection<Long> partIds = candidates(indexes, part);
+                    if (partIds == null) {
+                        yield null;
+                    }
+                    ids.addAll(partIds);
+                }
+                yield ids;
+            }
+        };
+    }
+
+    /**
+     * Ids above {@code afterId} that may match, in ascending order and read lazily
+     * from the indexes' id sets, or null if the query has no such plan. Ranges have
+     * none, as sorted indexes order ids by key rather than by id.
+     */
+    static PrimitiveIterator.OfLong idsAfter(Function<String, ? extends SecondaryIndex<?>> indexes, Query query,
+                                             long afterId) {
+        List<IdSet> sets = idSets(indexes, query);
+        if (sets == null) {
+            return null;
+        }
+        PrimitiveIterator.OfLong ids = IdSet.EMPTY.idsAfter(afterId);
+        for (IdSet set : sets) {
+            ids = new MergedIds(ids, set.idsAfter(afterId));
+        }
+        return ids;
+    }
+
+    /**
+     * Index id sets whose union holds every match, or null if there are none.
+     */
+    private static List<IdSet> idSets(Function<String, ? extends SecondaryIndex<?>> indexes, Query query) {
+        return switch (query) {
+            case Query.Eq eq -> {
+                SecondaryIndex<?> index = indexes.apply(eq.field());
+                yield index == null ? null : List.of(index.ids(normalize(eq.value())));
+            }
+            case Query.In in -> {
+                SecondaryIndex<?> index = indexes.apply(in.field());
+                yield index == null ? null : in.values().stream().map(value -> index.ids(normalize(value))).toList();
+            }
+            case Query.Range range -> null;
+            case Query.And and -> {
+                List<IdSet> best = null;
+                for (Query part : and.parts()) {
+                    List<IdSet> sets = idSets(indexes, part);
+                    if (sets != null && (best == null || size(sets) < size(best))) {
+                        best = sets;
+                    }
+                }
+                yield best;
+            }
+            case Query.Or or -> {
+                List<IdSet> sets = new ArrayList<>();
+                for (Query part : or.parts()) {
+                    List<IdSet> partSets = idSets(indexes, part);
+                    if (partSets == null) {
+                        yield null;
+                    }
+                    sets.addAll(partSets);
+                }
+                yield sets;
+            }
+        };
+    }
+
+    private static long size(List<IdSet> sets) {
+        return sets.stream().mapToLong(IdSet::size).sum();
+    }
+
+    static <T> boolean matches(EntityPartition<T> partition, Query query, T entity) {
+        return switch (query) {
+            case Query.Eq eq -> Objects.equals(value(partition, eq.field(), entity), normalize(eq.value()));
+            case Query.In in -> {
+                Object value = value(partition, in.field(), entity);
+                yield in.values().stream().anyMatch(candidate -> Objects.equals(value, normalize(candidate)));
+            }
+            case Query.Range range -> inRange(value(partition, range.field(), entity),
+                    normalize(range.from()), normalize(range.to()));
+            case Query.And and -> and.parts().stream().allMatch(part -> matches(partition, part, entity));
+            case Query.Or or -> or.parts().stream().anyMatch(part -> matches(partition, part, entity));
+        };
+    }
+
+    /**
+     * Fails fast on fields the partition does not declare, before any work is done.
+     */
+    static void validate(EntityPartition<?> partition, Query query) {
+        switch (query) {
+            case Query.Eq eq -> partition.field(eq.field());
+            case Query.In in -> partition.field(in.field());
+            case Query.Range range -> partition.field(range.field());
+            case Query.And and -> and.parts().forEach(part -> validate(partition, part));
+            case Query.Or or -> or.parts().forEach(part -> validate(partition, part));
+        }
+    }
+
+    private static <T> Object value(EntityPartition<T> partition, String field, T entity) {
+        Function<T, ?> extractor = partition.field(field);
+        return normalize(extractor.apply(entity));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static boolean inRange(Object value, Object from, Object to) {
+        if (!(value instanceof Comparable comparable)) {
+            return false;
+        }
+        return (from == null || comparable.compareTo(from) >= 0)
+                && (to == null || comparable.compareTo(to) <= 0);
+    }
+
+    /**
+     * Brings query values and field values to the key types the indexes use:
+     * dates become epoch days and integral numbers become longs.
+     */
+    static Object normalize(Object value) {
+        return switch (value) {
+            case LocalDate date -> date.toEpochDay();
+            case Integer number -> number.longValue();
+            case Short number -> number.longValue();
+            case Byte number -> number.longValue();
+            case null, default -> value;
+        };
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.gym.storage;
+
+/**
+ * Notified after every full partition scan performed by {@link InMemoryStorage}.
+ */
+@FunctionalInterface
+public interface ScanListener {
+
+    void onScan(Class<?> entityClass, int visited, int matched, long elapsedNanos);
+}
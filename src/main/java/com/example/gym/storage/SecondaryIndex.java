@@ -0,0 +1,113 @@
+package com.example.gym.storage;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * Non-unique index from a derived key to the ids of the entities that have it.
+ * The last indexed key of every id is remembered, so entities mutated in place
+ * are moved to their new key on the next put. Over a store that hands out
+ * copies, the replaced entity already tells the old key, and the index can be
+ * {@linkplain #untrack() untracked} to save the per-id map.
+ */
+class SecondaryIndex<T> {
+
+    private final Function<T, ?> keyExtractor;
+    protected final ConcurrentMap<Object, IdSet> idsByKey;
+    private volatile Map<Long, Object> keyById = new ConcurrentHashMap<>();
+
+    SecondaryIndex(Function<T, ?> keyExtractor) {
+        this(keyExtractor, new ConcurrentHashMap<>());
+    }
+
+    protected SecondaryIndex(Function<T, ?> keyExtractor, ConcurrentMap<Object, IdSet> idsByKey) {
+        this.keyExtractor = keyExtractor;
+        this.idsByKey = idsByKey;
+    }
+
+    /**
+     * Stops remembering the key of every id and takes old keys from the replaced
+     * entity instead. Only valid while the index is empty.
+     */
+    void untrack() {
+        keyById = null;
+    }
+
+    /**
+     * Moves {@code id} to the key of {@code next}. {@code previous}, the replaced
+     * entity or null, is only consulted once the index is untracked.
+     */
+    void update(long id, T previous, T next) {
+        Object key = keyExtractor.apply(next);
+        Map<Long, Object> tracked = keyById;
+        if (tracked == null) {
+            Object previousKey = previous == null ? null : keyExtractor.apply(previous);
+            if (!Objects.equals(previousKey, key)) {
+                if (previousKey != null) {
+                    removeId(previousKey, id);
+                }
+                if (key != null) {
+                    addId(key, id);
+                }
+            }
+            return;
+        }
+        tracked.compute(id, (entityId, previousKey) -> {
+            if (previousKey != null && !Objects.equals(previousKey, key)) {
+                removeId(previousKey, entityId);
+            }
+            if (key != null) {
+                addId(key, entityId);
+            }
+            return key;
+        });
+    }
+
+    void remove(long id, T previous) {
+        Map<Long, Object> tracked = keyById;
+        if (tracked == null) {
+            Object previousKey = previous == null ? null : keyExtractor.apply(previous);
+            if (previousKey != null) {
+                removeId(previousKey, id);
+            }
+            return;
+        }
+        tracked.computeIfPresent(id, (entityId, previousKey) -> {
+            removeId(previousKey, entityId);
+            return null;
+        });
+    }
+
+    /**
+     * Ids of the entities with {@code key}, in ascending order.
+     */
+    IdSet ids(Object key) {
+        return key == null ? IdSet.EMPTY : idsByKey.getOrDefault(key, IdSet.EMPTY);
+    }
+
+    void clear() {
+        idsByKey.clear();
+        Map<Long, Object> tracked = keyById;
+        if (tracked != null) {
+            tracked.clear();
+        }
+    }
+
+    private void addId(Object key, long id) {
+        idsByKey.compute(key, (k, ids) -> {
+            IdSet result = ids != null ? ids : new IdSet();
+            result.addId(id);
+            return result;
+        });
+    }
+
+    private void removeId(Object key, long id) {
+        idsByKey.computeIfPresent(key, (k, ids) -> {
+            ids.removeId(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.gym.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Binary snapshot of the whole storage. A snapshot is a header followed by one
+ * record per entity ({@code tag, payload}) terminated by a zero tag, and the id
+ * counter of every entity type. Files are written to a temporary name, synced
+ * and then renamed, so a crash never leaves a truncated snapshot behind.
+ * <p>
+ * The header records the {@link EntityCodec#VERSION} of the records and the
+ * write-ahead log LSN the snapshot was started at; log records from that LSN on
+ * must be replayed on top of it. Only snapshots of the current format and codec
+ * version are read.
+ */
+@Slf4j
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x47594D53;
+    private static final int FORMAT_VERSION = 5;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private SnapshotFile() {
+    }
+
+    public static Path write(InMemoryStorage storage, Path directory) throws IOException {
+        return write(storage, directory, 0);
+    }
+
+    public static Path write(InMemoryStorage storage, Path directory, long walLsn) throws IOException {
+        Files.createDirectories(directory);
+        long createdAt = System.currentTimeMillis();
+        Path target = directory.resolve(PREFIX + createdAt + SUFFIX);
+        Path temp = directory.resolve(PREFIX + createdAt + SUFFIX + ".tmp");
+
+        int count;
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(EntityCodec.VERSION);
+            out.writeLong(createdAt);
+            out.writeLong(walLsn);
+            count = 0;
+            try {
+                for (EntityCodec<?> codec : EntityCodecs.ALL) {
+                    count += writeEntities(storage, codec, out);
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.writeByte(0);
+            for (EntityCodec<?> codec : EntityCodecs.ALL) {
+                out.writeByte(codec.getTag());
+                out.writeLong(storage.getIdCounter(codec.getEntityClass()));
+            }
+            out.writeByte(0);
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Wrote snapshot {} with {} entities", target, count);
+        return target;
+    }
+
+    public static Restored read(Path snapshot, InMemoryStorage storage) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshot), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a storage snapshot: " + snapshot);
+            }
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + snapshot);
+            }
+            int codecVersion = in.readInt();
+            if (codecVersion != EntityCodec.VERSION) {
+                throw new IOException("Unsupported codec version " + codecVersion + " in " + snapshot);
+            }
+            in.readLong();
+            long walLsn = in.readLong();
+
+            int count = 0;
+            for (byte tag = in.readByte(); tag != 0; tag = in.readByte()) {
+                readEntity(EntityCodecs.byTag(tag), in, storage);
+                count++;
+            }
+            for (byte tag = in.readByte(); tag != 0; tag = in.readByte()) {
+                storage.initializeIdCounter(EntityCodecs.byTag(tag).getEntityClass(), in.readLong());
+            }
+            log.info("Restored {} entities from snapshot {}", count, snapshot);
+            return new Restored(count, walLsn);
+        }
+    }
+
+    public static Optional<Path> latest(Path directory) throws IOException {
+        List<Path> snapshots = list(directory);
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+
+    /**
+     * Deletes all but the {@code retained} most recent snapshots.
+     */
+    public static void prune(Path directory, int retained) throws IOException {
+        List<Path> snapshots = list(directory);
+        for (int i = 0; i < snapshots.size() - retained; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(SnapshotFile::createdAt))
+                    .toList();
+        }
+    }
+
+    private static long createdAt(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static <T> int writeEntities(InMemoryStorage storage, EntityCodec<T> codec,
+                                         DataOutputStream out) {
+        int[] count = {0};
+        storage.forEach(codec.getEntityClass(), entity -> {
+            try {
+                out.writeByte(codec.getTag());
+                codec.write(out, entity);
+                count[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return count[0];
+    }
+
+    public record Restored(int entityCount, long walLsn) {
+    }
+
+    private static <T> void readEntity(EntityCodec<T> codec, DataInputStream in, InMemoryStorage storage)
+            throws IOException {
+        T entity = codec.read(in);
+        storage.put(codec.getEntityClass(), codec.id(entity), entity);
+    }
+}
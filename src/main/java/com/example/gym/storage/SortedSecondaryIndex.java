@@ -0,0 +1,43 @@
+package com.example.gym.storage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+
+/**
+ * Secondary index kept in key order, so that a range of keys can be read in
+ * O(log n + k). Keys produced by the extractor must be mutually comparable.
+ */
+class SortedSecondaryIndex<T> extends SecondaryIndex<T> {
+
+    SortedSecondaryIndex(Function<T, ? extends Comparable<?>> keyExtractor) {
+        super(keyExtractor, new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * Returns the ids with keys between the bounds, inclusive; a null bound is open.
+     * An inverted range, with {@code fromInclusive} above {@code toInclusive}, is empty.
+     */
+    List<Long> idsInRange(Object fromInclusive, Object toInclusive) {
+        ConcurrentNavigableMap<Object, IdSet> sorted = (ConcurrentNavigableMap<Object, IdSet>) idsByKey;
+        if (fromInclusive != null && toInclusive != null && compare(fromInclusive, toInclusive) > 0) {
+            return List.of();
+        }
+        if (fromInclusive != null) {
+            sorted = sorted.tailMap(fromInclusive, true);
+        }
+        if (toInclusive != null) {
+            sorted = sorted.headMap(toInclusive, true);
+        }
+        List<Long> result = new ArrayList<>();
+        sorted.values().forEach(result::addAll);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compare(Object a, Object b) {
+        return ((Comparable<Object>) a).compareTo(b);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index from the words of trainer specializations to the ids of the
+ * active trainers having them. Specializations are free text, so they are split
+ * into lower-case words: "Cardio / Strength" is found for both "cardio" and
+ * "strength". Inactive trainers are not indexed.
+ * <p>
+ * Like {@link SecondaryIndex}, the words of every id are remembered, so a
+ * trainer mutated in place and stored again is moved correctly.
+ */
+class SpecializationIndex {
+
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final Map<String, Set<Long>> trainersByWord = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> wordsByTrainer = new ConcurrentHashMap<>();
+
+    /**
+     * Ids of the trainers sharing at least one word with {@code text}, mapped to
+     * the number of words they share.
+     */
+    Map<Long, Integer> match(String text) {
+        Map<Long, Integer> matches = new HashMap<>();
+        for (String word : words(text)) {
+            for (Long id : trainersByWord.getOrDefault(word, Set.of())) {
+                matches.merge(id, 1, Integer::sum);
+            }
+        }
+        return matches;
+    }
+
+    void update(long id, Trainer previous, Trainer trainer) {
+        Set<String> next = trainer.isActive() ? words(trainer.getSpecialization()) : Set.of();
+        wordsByTrainer.compute(id, (key, indexed) -> {
+            if (indexed != null) {
+                indexed.stream().filter(word -> !next.contains(word)).forEach(word -> removeId(word, id));
+            }
+            next.forEach(word -> addId(word, id));
+            return next.isEmpty() ? null : next;
+        });
+    }
+
+    void remove(long id, Trainer previous) {
+        wordsByTrainer.computeIfPresent(id, (key, indexed) -> {
+            indexed.forEach(word -> removeId(word, id));
+            return null;
+        });
+    }
+
+    void clear() {
+        trainersByWord.clear();
+        wordsByTrainer.clear();
+    }
+
+    static Set<String> words(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        Set<String> words = new HashSet<>();
+        for (String word : SEPARATORS.split(text.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return Set.copyOf(words);
+    }
+
+    private void addId(String word, long id) {
+        trainersByWord.compute(word, (key, ids) -> {
+            Set<Long> result = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            result.add(id);
+            return result;
+        });
+    }
+
+    private void removeId(String word, long id) {
+        trainersByWord.computeIfPresent(word, (key, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
@@ -4,20 +4,39 @@ import com.example.gym.model.Trainee;
 import com.example.gym.model.Trainer;
 import com.example.gym.model.Training;
 import com.example.gym.model.TrainingType;
-import tools.jackson.core.type.TypeReference;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanPostProcessor;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 @Component
 @Slf4j
@@ -26,9 +45,25 @@ public class StorageInitializer implements BeanPostProcessor {
     @Value("${storage.init.file:}")
     private String initFilePath;
 
+    @Value("${storage.snapshot.dir:}")
+    private String snapshotDir;
+
+    @Value("${storage.wal.enabled:false}")
+    private boolean walEnabled;
+
+    @Value("${storage.wal.dir:data/wal}")
+    private String walDir;
+
+    @Value("${storage.init.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${storage.init.parallelism:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+    private int parallelism;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResourceLoader resourceLoader = new DefaultResourceLoader();
 
-    private final Map<String, Function<Map<String, Object>, EntityConversionResult>> converters = new HashMap<>();
+    private final Map<String, Function<JsonNode, EntityConversionResult>> converters = new HashMap<>();
 
     public StorageInitializer() {
         converters.put("trainer", this::convertToTrainer);
@@ -40,49 +75,138 @@ public class StorageInitializer implements BeanPostProcessor {
     @Override
     public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
         if (bean instanceof InMemoryStorage storage) {
-            if (initFilePath != null && !initFilePath.isEmpty()) {
+            Optional<SnapshotFile.Restored> restored = restoreSnapshot(storage);
+            if (restored.isEmpty() && initFilePath != null && !initFilePath.isEmpty()) {
                 loadDataIntoStorage(storage);
             }
+            if (walEnabled) {
+                replayWriteAheadLog(storage, restored.map(SnapshotFile.Restored::walLsn).orElse(0L));
+            }
             log.info("Storage initialized with {} entries", storage.size());
         }
         return bean;
     }
 
-    private void loadDataIntoStorage(InMemoryStorage storage) {
+    /**
+     * Restores the latest snapshot, if any. An unreadable snapshot fails startup:
+     * the write-ahead log segments it replaced are gone, so rebuilding from the
+     * init file and the remaining log would silently lose data.
+     */
+    private Optional<SnapshotFile.Restored> restoreSnapshot(InMemoryStorage storage) {
+        if (snapshotDir == null || snapshotDir.isEmpty()) {
+            return Optional.empty();
+        }
         try {
-            String resourcePath = initFilePath.replace("classpath:", "");
-            ClassPathResource resource = new ClassPathResource(resourcePath);
-            InputStream inputStream = resource.getInputStream();
-
-            Map<String, Map<String, Object>> data = objectMapper.readValue(
-                    inputStream,
-                    new TypeReference<>() {}
-            );
-
-            for (Map.Entry<String, Map<String, Object>> entry : data.entrySet()) {
-                String key = entry.getKey();
-                Map<String, Object> value = entry.getValue();
-
-                EntityConversionResult result = convertToEntity(key, value);
-                if (result != null) {
-                    storage.put(result.entityClass(), result.id(), result.entity());
-                    storage.initializeIdCounter(result.entityClass(), result.id());
-                    log.debug("Loaded entity with key: {}", key);
-                }
+            Optional<Path> snapshot = SnapshotFile.latest(Path.of(snapshotDir));
+            if (snapshot.isEmpty()) {
+                log.info("No snapshot found in {}", snapshotDir);
+                return Optional.empty();
             }
+            return Optional.of(SnapshotFile.read(snapshot.get(), storage));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to restore snapshot from " + snapshotDir, e);
+        }
+    }
 
-            log.info("Successfully loaded {} entities from {}", data.size(), initFilePath);
-
+    private void replayWriteAheadLog(InMemoryStorage storage, long fromLsn) {
+        try {
+            WriteAheadLog.replay(Path.of(walDir), fromLsn, storage);
         } catch (IOException e) {
+            throw new IllegalStateException("Failed to replay write-ahead log from " + walDir, e);
+        }
+    }
+
+    /**
+     * Streams the init file entry by entry: the parser reads one {@code "type:id": {...}}
+     * entry at a time, and batches of parsed entries are converted and stored on a
+     * worker pool. At most {@code 2 * parallelism} batches are in flight, so memory
+     * stays bounded by the batch size rather than the file size.
+     */
+    private void loadDataIntoStorage(InMemoryStorage storage) {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        List<Future<?>> pending = new ArrayList<>();
+        AtomicInteger loaded = new AtomicInteger();
+
+        try (InputStream inputStream = openInitFile();
+             JsonParser parser = objectMapper.createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Init file must contain a JSON object: " + initFilePath);
+            }
+            List<Map.Entry<String, JsonNode>> batch = new ArrayList<>(batchSize);
+            while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+                String key = parser.currentName();
+                parser.nextToken();
+                batch.add(Map.entry(key, parser.readValueAsTree()));
+                if (batch.size() == batchSize) {
+                    pending.add(submitBatch(workers, inFlight, batch, storage, loaded));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                pending.add(submitBatch(workers, inFlight, batch, storage, loaded));
+            }
+            for (Future<?> future : pending) {
+                future.get();
+            }
+            log.info("Successfully loaded {} entities from {}", loaded.get(), initFilePath);
+        } catch (IOException | JacksonException e) {
             log.error("Failed to load initial data from file: {}", initFilePath, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while loading initial data from file: {}", initFilePath, e);
+        } catch (ExecutionException e) {
+            log.error("Failed to load initial data from file: {}", initFilePath, e.getCause());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private InputStream openInitFile() throws IOException {
+        Resource resource = ResourceUtils.isUrl(initFilePath)
+                ? resourceLoader.getResource(initFilePath)
+                : new FileSystemResource(initFilePath);
+        InputStream inputStream = new BufferedInputStream(resource.getInputStream(), 1 << 16);
+        return initFilePath.endsWith(".gz") ? new GZIPInputStream(inputStream, 1 << 16) : inputStream;
+    }
+
+    private Future<?> submitBatch(ExecutorService workers, Semaphore inFlight,
+                                  List<Map.Entry<String, JsonNode>> batch,
+                                  InMemoryStorage storage, AtomicInteger loaded) throws InterruptedException {
+        inFlight.acquire();
+        return workers.submit(() -> {
+            try {
+                for (Map.Entry<String, JsonNode> entry : batch) {
+                    if (loadEntity(storage, entry.getKey(), entry.getValue())) {
+                        loaded.incrementAndGet();
+                    }
+                }
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    private boolean loadEntity(InMemoryStorage storage, String key, JsonNode value) {
+        EntityConversionResult result = convertToEntity(key, value);
+        if (result == null) {
+            return false;
+        }
+        try {
+            storage.put(result.entityClass(), result.id(), result.entity());
+            storage.initializeIdCounter(result.entityClass(), result.id());
+            log.debug("Loaded entity with key: {}", key);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Failed to store entity with key: {}", key, e);
+            return false;
         }
     }
 
-    private EntityConversionResult convertToEntity(String key, Map<String, Object> data) {
+    private EntityConversionResult convertToEntity(String key, JsonNode data) {
         String namespace = key.split(":")[0].toLowerCase();
-        Long id = Long.parseLong(key.split(":")[1]);
 
-        Function<Map<String, Object>, EntityConversionResult> converter = converters.get(namespace);
+        Function<JsonNode, EntityConversionResult> converter = converters.get(namespace);
         if (converter == null) {
             log.warn("Unknown entity type for key: {}", key);
             return null;
@@ -90,29 +214,29 @@ public class StorageInitializer implements BeanPostProcessor {
 
         try {
             return converter.apply(data);
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | JacksonException e) {
             log.error("Failed to convert entity with key: {}", key, e);
             return null;
         }
     }
 
-    private EntityConversionResult convertToTrainer(Map<String, Object> data) {
-        Trainer trainer = objectMapper.convertValue(data, Trainer.class);
+    private EntityConversionResult convertToTrainer(JsonNode data) {
+        Trainer trainer = objectMapper.treeToValue(data, Trainer.class);
         return new EntityConversionResult(Trainer.class, trainer.getUserId(), trainer);
     }
 
-    private EntityConversionResult convertToTrainee(Map<String, Object> data) {
-        Trainee trainee = objectMapper.convertValue(data, Trainee.class);
+    private EntityConversionResult convertToTrainee(JsonNode data) {
+        Trainee trainee = objectMapper.treeToValue(data, Trainee.class);
         return new EntityConversionResult(Trainee.class, trainee.getUserId(), trainee);
     }
 
-    private EntityConversionResult convertToTraining(Map<String, Object> data) {
-        Training training = objectMapper.convertValue(data, Training.class);
+    private EntityConversionResult convertToTraining(JsonNode data) {
+        Training training = objectMapper.treeToValue(data, Training.class);
         return new EntityConversionResult(Training.class, training.getTrainingId(), training);
     }
 
-    private EntityConversionResult convertToTrainingType(Map<String, Object> data) {
-        TrainingType trainingType = objectMapper.convertValue(data, TrainingType.class);
+    private EntityConversionResult convertToTrainingType(JsonNode data) {
+        TrainingType trainingType = objectMapper.treeToValue(data, TrainingType.class);
         return new EntityConversionResult(TrainingType.class, trainingType.getTrainingTypeId(), trainingType);
     }
 
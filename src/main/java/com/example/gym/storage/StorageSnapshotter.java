@@ -0,0 +1,70 @@
+package com.example.gym.storage;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Periodically writes the storage to a binary snapshot in {@code storage.snapshot.dir},
+ * and once more on shutdown. Only created when a directory is configured.
+ */
+@Component
+@ConditionalOnExpression("!'${storage.snapshot.dir:}'.isEmpty()")
+@Slf4j
+public class StorageSnapshotter {
+
+    private final InMemoryStorage storage;
+    private WriteAheadLog writeAheadLog;
+
+    @Value("${storage.snapshot.dir:}")
+    private String snapshotDir;
+
+    @Value("${storage.snapshot.retained:2}")
+    private int retained;
+
+    public StorageSnapshotter(InMemoryStorage storage) {
+        this.storage = storage;
+    }
+
+    @Autowired(required = false)
+    public void setWriteAheadLog(WriteAheadLog writeAheadLog) {
+        this.writeAheadLog = writeAheadLog;
+    }
+
+    @Scheduled(fixedDelayString = "${storage.snapshot.interval-ms:300000}",
+            initialDelayString = "${storage.snapshot.interval-ms:300000}")
+    public void scheduledSnapshot() {
+        snapshotQuietly();
+    }
+
+    @PreDestroy
+    public void snapshotOnShutdown() {
+        snapshotQuietly();
+    }
+
+    public synchronized Path takeSnapshot() throws IOException {
+        Path directory = Path.of(snapshotDir);
+        long walLsn = writeAheadLog != null ? writeAheadLog.roll() : 0;
+        Path snapshot = SnapshotFile.write(storage, directory, walLsn);
+        SnapshotFile.prune(directory, retained);
+        if (writeAheadLog != null) {
+            writeAheadLog.deleteSegmentsBefore(walLsn);
+        }
+        return snapshot;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            takeSnapshot();
+        } catch (IOException e) {
+            log.error("Failed to write storage snapshot to {}", snapshotDir, e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Training;
+import com.example.gym.query.TrainingStats;
+import com.example.gym.utils.EpochDays;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongFunction;
+
+/**
+ * Training counts and total durations per trainee, trainer, training type and
+ * day, kept up to date on every training write so reports never scan trainings.
+ * Totals read in O(1); day ranges cost one lookup per day bucket with trainings.
+ * <p>
+ * Like {@link SecondaryIndex}, the contribution of every id is remembered, so a
+ * training mutated in place and stored again moves its totals correctly, until
+ * the aggregates are {@linkplain #untrack(LongFunction) untracked} over a store
+ * that hands out copies. Archived trainings stay counted until a newer version
+ * is stored or they are deleted.
+ */
+public final class TrainingAggregates {
+
+    private volatile Map<Long, Contribution> contributions = new ConcurrentHashMap<>();
+    private volatile LongFunction<Training> archived = id -> null;
+    private final ConcurrentMap<Long, TrainingStats> byTrainee = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, TrainingStats> byTrainer = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, TrainingStats> byType = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, TrainingStats> byDay = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<OwnerDayKey, TrainingStats> byTraineeDay = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<OwnerDayKey, TrainingStats> byTrainerDay = new ConcurrentSkipListMap<>();
+
+    TrainingAggregates() {
+    }
+
+    public TrainingStats forTrainee(long traineeId) {
+        return byTrainee.getOrDefault(traineeId, TrainingStats.EMPTY);
+    }
+
+    public TrainingStats forTrainer(long trainerId) {
+        return byTrainer.getOrDefault(trainerId, TrainingStats.EMPTY);
+    }
+
+    public TrainingStats forType(long trainingTypeId) {
+        return byType.getOrDefault(trainingTypeId, TrainingStats.EMPTY);
+    }
+
+    /**
+     * Totals of all trainings dated between the epoch days, inclusive.
+     */
+    public TrainingStats forDays(long fromEpochDay, long toEpochDay) {
+        return sum(byDay.subMap(fromEpochDay, true, toEpochDay, true));
+    }
+
+    public TrainingStats forTrainee(long traineeId, long fromEpochDay, long toEpochDay) {
+        return sum(byTraineeDay.subMap(
+                new OwnerDayKey(traineeId, fromEpochDay), true, new OwnerDayKey(traineeId, toEpochDay), true));
+    }
+
+    public TrainingStats forTrainer(long trainerId, long fromEpochDay, long toEpochDay) {
+        return sum(byTrainerDay.subMap(
+                new OwnerDayKey(trainerId, fromEpochDay), true, new OwnerDayKey(trainerId, toEpochDay), true));
+    }
+
+    /**
+     * Stops remembering the contribution of every id and takes the replaced
+     * totals from the previous training instead, or from {@code archived} for a
+     * training stored again after it was archived. Only valid while empty.
+     */
+    void untrack(LongFunction<Training> archived) {
+        this.archived = archived;
+        contributions = null;
+    }
+
+    /**
+     * Counts {@code next} instead of what was counted for {@code id}. The
+     * {@code previous} training, or null, is only consulted once untracked.
+     */
+    void update(long id, Training previous, Training next) {
+        Contribution contribution = Contribution.of(next);
+        Map<Long, Contribution> tracked = contributions;
+        if (tracked == null) {
+            Training replaced = previous != null ? previous : archived.apply(id);
+            if (replaced != null) {
+                apply(Contribution.of(replaced), false);
+            }
+            apply(contribution, true);
+            return;
+        }
+        tracked.compute(id, (key, counted) -> {
+            if (counted != null) {
+                apply(counted, false);
+            }
+            apply(contribution, true);
+            return contribution;
+        });
+    }
+
+    /**
+     * Stops counting {@code id}, whose counted training was {@code previous}.
+     */
+    void remove(long id, Training previous) {
+        Map<Long, Contribution> tracked = contributions;
+        if (tracked == null) {
+            if (previous != null) {
+                apply(Contribution.of(previous), false);
+            }
+            return;
+        }
+        tracked.computeIfPresent(id, (key, counted) -> {
+            apply(counted, false);
+            return null;
+        });
+    }
+
+    /**
+     * Counts an archived training that nothing on heap counts for.
+     */
+    void addArchived(long id, Training training) {
+        Map<Long, Contribution> tracked = contributions;
+        if (tracked == null) {
+            apply(Contribution.of(training), true);
+        } else {
+            update(id, null, training);
+        }
+    }
+
+    void clear() {
+        Map<Long, Contribution> tracked = contributions;
+        if (tracked != null) {
+            tracked.clear();
+        }
+        byTrainee.clear();
+        byTrainer.clear();
+        byType.clear();
+        byDay.clear();
+        byTraineeDay.clear();
+        byTrainerDay.clear();
+    }
+
+    private void apply(Contribution contribution, boolean add) {
+        TrainingStats delta = new TrainingStats(add ? 1 : -1, add ? contribution.duration() : -contribution.duration());
+        add(byTrainee, contribution.traineeId(), delta);
+        add(byTrainer, contribution.trainerId(), delta);
+        add(byType, contribution.typeId(), delta);
+        if (contribution.epochDay() != EpochDays.NONE) {
+            long day = contribution.epochDay();
+            add(byDay, day, delta);
+            add(byTraineeDay, contribution.traineeId() == null ? null : new OwnerDayKey(contribution.traineeId(), day), delta);
+            add(byTrainerDay, contribution.trainerId() == null ? null : new OwnerDayKey(contribution.trainerId(), day), delta);
+        }
+    }
+
+    private static <K> void add(ConcurrentMap<K, TrainingStats> totals, K key, TrainingStats delta) {
+        if (key == null) {
+            return;
+        }
+        totals.compute(key, (k, current) -> {
+            TrainingStats result = current == null ? delta : current.plus(delta);
+            return result.count() == 0 ? null : result;
+        });
+    }
+
+    private static TrainingStats sum(NavigableMap<?, TrainingStats> buckets) {
+        long count = 0;
+        long totalDuration = 0;
+        for (TrainingStats stats : buckets.values()) {
+            count += stats.count();
+            totalDuration += stats.totalDuration();
+        }
+        return new TrainingStats(count, totalDuration);
+    }
+
+    private record Contribution(Long traineeId, Long trainerId, Long typeId, int epochDay, int duration) {
+
+        static Contribution of(Training training) {
+            return new Contribution(training.getTraineeId(), training.getTrainerId(),
+                    training.getTrainingType() == null ? null : training.getTrainingType().getTrainingTypeId(),
+                    training.getTrainingEpochDay(), training.getTrainingDuration());
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.gym.storage;
+
+import com.example.gym.exception.ScheduleConflictException;
+import com.example.gym.model.Training;
+import com.example.gym.query.TimeSlot;
+import com.example.gym.utils.DayMinutes;
+import com.example.gym.utils.EpochDays;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Interval index of booked trainings per trainer and per trainee. A training
+ * occupies {@code [start, start + duration)} in minutes; trainings without a
+ * start time or duration occupy no slot and never conflict.
+ * <p>
+ * Each calendar is kept sorted by start and counts its slots per duration, so
+ * the longest current slot is known and the slots overlapping an interval are
+ * found in O(log n + k) by only looking at those starting at most that long
+ * before it. Freeing a long slot shortens the look-back again.
+ */
+public final class TrainingSchedule {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private volatile Map<Long, Slot> slotsById = new ConcurrentHashMap<>();
+    private final Map<Long, Calendar> trainers = new ConcurrentHashMap<>();
+    private final Map<Long, Calendar> trainees = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    TrainingSchedule() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Ids of other trainings of the same trainer or trainee that overlap
+     * {@code training}, in ascending order.
+     */
+    public List<Long> conflicts(Training training) {
+        Slot slot = Slot.of(training);
+        if (slot == null) {
+            return List.of();
+        }
+        long self = training.getTrainingId() == null ? Long.MIN_VALUE : training.getTrainingId();
+        TreeSet<Long> ids = new TreeSet<>();
+        collect(calendar(trainers, slot.trainerId()), slot, self, ids);
+        collect(calendar(trainees, slot.traineeId()), slot, self, ids);
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * Gaps of at least {@code minMinutes} in the trainer's calendar between
+     * {@code from} and {@code to}.
+     */
+    public List<TimeSlot> trainerFreeSlots(long trainerId, LocalDateTime from, LocalDateTime to, int minMinutes) {
+        return freeSlots(trainers.get(trainerId), from, to, minMinutes);
+    }
+
+    /**
+     * Whether the trainer has nothing booked overlapping {@code minutes} from {@code start}.
+     */
+    public boolean isTrainerFree(long trainerId, LocalDateTime start, int minutes) {
+        Calendar calendar = trainers.get(trainerId);
+        if (calendar == null) {
+            return true;
+        }
+        long from = minutes(start);
+        long to = from + minutes;
+        return calendar.overlapping(from, to).values().stream().noneMatch(end -> end > from);
+    }
+
+    public List<TimeSlot> traineeFreeSlots(long traineeId, LocalDateTime from, LocalDateTime to, int minMinutes) {
+        return freeSlots(trainees.get(traineeId), from, to, minMinutes);
+    }
+
+    /**
+     * Runs {@code action} holding the locks of the training's trainer and trainee,
+     * so that a conflict check and the write that follows it are atomic with
+     * respect to other bookings for the same people.
+     */
+    void withLocks(Training training, Runnable action) {
+        withLocks(List.of(training), action);
+    }
+
+    /**
+     * Like {@link #withLocks(Training, Runnable)}, for the trainers and trainees of
+     * a whole batch. Locks are always taken in stripe order, so batches and single
+     * bookings never deadlock each other.
+     */
+    void withLocks(Collection<Training> trainings, Runnable action) {
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (Training training : trainings) {
+            stripes.add(stripe(training.getTrainerId(), 0));
+            stripes.add(stripe(training.getTraineeId(), 1));
+        }
+        List<ReentrantLock> held = new ArrayList<>(stripes.size());
+        try {
+            for (int stripe : stripes) {
+                locks[stripe].lock();
+                held.add(locks[stripe]);
+            }
+            action.run();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Checks a batch of trainings, keyed by their ids, against the booked ones and
+     * against each other. Booked trainings the batch replaces are only checked in their new
+     * version. Call under {@link #withLocks(Collection, Runnable)} for the batch.
+     *
+     * @throws ScheduleConflictException for the first training in batch order that
+     *         overlaps another one
+     */
+    void checkBatch(Map<Long, ? extends Training> trainings) {
+        TrainingSchedule batch = new TrainingSchedule();
+        trainings.forEach((id, training) -> {
+            TreeSet<Long> conflicts = new TreeSet<>(batch.conflicts(training));
+            conflicts(training).stream().filter(other -> !trainings.containsKey(other)).forEach(conflicts::add);
+            if (!conflicts.isEmpty()) {
+                throw new ScheduleConflictException(id, new ArrayList<>(conflicts));
+            }
+            batch.update(id, null, training);
+        });
+    }
+
+    /**
+     * Stops remembering the slot of every id and takes the freed slot from the
+     * replaced training instead. Only valid while empty, and only over a store
+     * that hands out copies.
+     */
+    void untrack() {
+        slotsById = null;
+    }
+
+    /**
+     * Books {@code next} in place of what was booked for {@code id}. The
+     * {@code previous} training, or null, is only consulted once untracked.
+     */
+    void update(long id, Training previous, Training next) {
+        Slot slot = Slot.of(next);
+        Map<Long, Slot> tracked = slotsById;
+        if (tracked == null) {
+            Slot freed = previous == null ? null : Slot.of(previous);
+            if (freed != null) {
+                unbook(id, freed);
+            }
+            if (slot != null) {
+                book(id, slot);
+            }
+            return;
+        }
+        tracked.compute(id, (key, booked) -> {
+            if (booked != null) {
+                unbook(id, booked);
+            }
+            if (slot != null) {
+                book(id, slot);
+            }
+            return slot;
+        });
+    }
+
+    void remove(long id, Training previous) {
+        Map<Long, Slot> tracked = slotsById;
+        if (tracked == null) {
+            Slot freed = previous == null ? null : Slot.of(previous);
+            if (freed != null) {
+                unbook(id, freed);
+            }
+            return;
+        }
+        tracked.computeIfPresent(id, (key, booked) -> {
+            unbook(id, booked);
+            return null;
+        });
+    }
+
+    void clear() {
+        Map<Long, Slot> tracked = slotsById;
+        if (tracked != null) {
+            tracked.clear();
+        }
+        trainers.clear();
+        trainees.clear();
+    }
+
+    private void book(long id, Slot slot) {
+        if (slot.trainerId() != null) {
+            trainers.computeIfAbsent(slot.trainerId(), key -> new Calendar()).add(id, slot);
+        }
+        if (slot.traineeId() != null) {
+            trainees.computeIfAbsent(slot.traineeId(), key -> new Calendar()).add(id, slot);
+        }
+    }
+
+    private void unbook(long id, Slot slot) {
+        if (slot.trainerId() != null) {
+            trainers.get(slot.trainerId()).remove(id, slot);
+        }
+        if (slot.traineeId() != null) {
+            trainees.get(slot.traineeId()).remove(id, slot);
+        }
+    }
+
+    private static Calendar calendar(Map<Long, Calendar> calendars, Long ownerId) {
+        return ownerId == null ? null : calendars.get(ownerId);
+    }
+
+    private static void collect(Calendar calendar, Slot slot, long self, TreeSet<Long> ids) {
+        if (calendar == null) {
+            return;
+        }
+        calendar.overlapping(slot.start(), slot.end()).forEach((key, end) -> {
+            if (key.id() != self && end > slot.start()) {
+                ids.add(key.id());
+            }
+        });
+    }
+
+    private static List<TimeSlot> freeSlots(Calendar calendar, LocalDateTime from, LocalDateTime to, int minMinutes) {
+        if (minMinutes < 1) {
+            throw new IllegalArgumentException("Minimum slot length must be positive: " + minMinutes);
+        }
+        long windowStart = minutes(from);
+        long windowEnd = minutes(to);
+        List<TimeSlot> free = new ArrayList<>();
+        long cursor = windowStart;
+        if (calendar != null) {
+            for (Map.Entry<SlotKey, Long> busy : calendar.overlapping(windowStart, windowEnd).entrySet()) {
+                long start = busy.getKey().start();
+                if (start - cursor >= minMinutes) {
+                    free.add(new TimeSlot(dateTime(cursor), dateTime(start)));
+                }
+                cursor = Math.max(cursor, busy.getValue());
+            }
+        }
+        if (windowEnd - cursor >= minMinutes) {
+            free.add(new TimeSlot(dateTime(cursor), dateTime(windowEnd)));
+        }
+        return free;
+    }
+
+    private int stripe(Long ownerId, int salt) {
+        long hash = (ownerId == null ? 0 : ownerId) * 0x9E3779B97F4A7C15L + salt;
+        return (int) (hash >>> 58) & (LOCK_STRIPES - 1);
+    }
+
+    private static long minutes(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay() * DayMinutes.PER_DAY
+                + dateTime.getHour() * 60L + dateTime.getMinute();
+    }
+
+    private static LocalDateTime dateTime(long minutes) {
+        return LocalDateTime.of(
+                LocalDate.ofEpochDay(Math.floorDiv(minutes, DayMinutes.PER_DAY)),
+                LocalTime.ofSecondOfDay(Math.floorMod(minutes, DayMinutes.PER_DAY) * 60L));
+    }
+
+    private record Slot(Long trainerId, Long traineeId, long start, long end) {
+
+        static Slot of(Training training) {
+            if (training.getTrainingEpochDay() == EpochDays.NONE
+                    || training.getTrainingStartMinute() == DayMinutes.NONE
+                    || training.getTrainingDuration() <= 0) {
+                return null;
+            }
+            long start = (long) training.getTrainingEpochDay() * DayMinutes.PER_DAY + training.getTrainingStartMinute();
+            return new Slot(training.getTrainerId(), training.getTraineeId(), start, start + training.getTrainingDuration());
+        }
+    }
+
+    private record SlotKey(long start, long id) implements Comparable<SlotKey> {
+
+        @Override
+        public int compareTo(SlotKey other) {
+            int byStart = Long.compare(start, other.start);
+            return byStart != 0 ? byStart : Long.compare(id, other.id);
+        }
+    }
+
+    private static final class Calendar {
+
+        private final ConcurrentSkipListMap<SlotKey, Long> endsByStart = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<Long, Integer> durations = new ConcurrentSkipListMap<>();
+
+        void add(long id, Slot slot) {
+            durations.merge(slot.end() - slot.start(), 1, Integer::sum);
+            endsByStart.put(new SlotKey(slot.start(), id), slot.end());
+        }
+
+        void remove(long id, Slot slot) {
+            if (endsByStart.remove(new SlotKey(slot.start(), id)) != null) {
+                durations.computeIfPresent(slot.end() - slot.start(), (duration, count) -> count == 1 ? null : count - 1);
+            }
+        }
+
+        /**
+         * Slots starting late enough that they may overlap {@code [start, end)},
+         * in start order. Callers still check each slot's end against the start.
+         */
+        Map<SlotKey, Long> overlapping(long start, long end) {
+            Map.Entry<Long, Integer> longest = durations.lastEntry();
+            return endsByStart.subMap(
+                    new SlotKey(start - (longest == null ? 0 : longest.getKey()), Long.MIN_VALUE), true,
+                    new SlotKey(end, Long.MIN_VALUE), false);
+        }
+    }
+}
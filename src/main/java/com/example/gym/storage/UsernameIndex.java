@@ -0,0 +1,121 @@
+package com.example.gym.storage;
+
+import com.example.gym.exception.DuplicateUsernameException;
+import com.example.gym.model.User;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unique index from username to the user that owns it, shared by all user partitions.
+ * A username can also be reserved ahead of saving the user that will own it.
+ */
+class UsernameIndex {
+
+    private static final Object RESERVED = new Object();
+
+    private final Map<String, Object> owners = new ConcurrentHashMap<>();
+
+    boolean reserve(String username) {
+        boolean[] reserved = {false};
+        owners.compute(username, (name, current) -> {
+            if (current == null || isStale(name, current)) {
+                reserved[0] = true;
+                return RESERVED;
+            }
+            return current;
+        });
+        return reserved[0];
+    }
+
+    void cancelReservation(String username) {
+        owners.remove(username, RESERVED);
+    }
+
+    /**
+     * Makes {@code user} the owner of its username and returns the entry it
+     * replaced: null, a reservation, or a previous owner.
+     */
+    Object claim(User user) {
+        String username = user.getUsername();
+        if (username == null) {
+            return null;
+        }
+        Object[] previous = new Object[1];
+        owners.compute(username, (name, current) -> {
+            if (current instanceof User owner && owner != user && !sameOwner(owner, user)
+                    && !isStale(name, owner)) {
+                throw new DuplicateUsernameException(name);
+            }
+            previous[0] = current;
+            return user;
+        });
+        return previous[0];
+    }
+
+    /**
+     * Claims the usernames of a whole batch, or none of them: if any is taken,
+     * including by another user of the same batch, the claims made so far are
+     * rolled back before the exception is thrown. Returns an undo that restores
+     * the previous owners, for callers that fail later on.
+     */
+    Runnable claimAll(Collection<?> users) {
+        Deque<Runnable> undo = new ArrayDeque<>();
+        Runnable rollback = () -> undo.forEach(Runnable::run);
+        try {
+            for (Object candidate : users) {
+                if (candidate instanceof User user && user.getUsername() != null) {
+                    Object previous = claim(user);
+                    undo.push(() -> owners.compute(user.getUsername(),
+                            (name, current) -> current == null || current == user ? previous : current));
+                }
+            }
+        } catch (RuntimeException e) {
+            rollback.run();
+            throw e;
+        }
+        return rollback;
+    }
+
+    /**
+     * Frees the username of {@code user} if that exact instance still owns it.
+     * An equal instance stored under the same id in its place keeps the entry.
+     */
+    void release(User user) {
+        String username = user.getUsername();
+        if (username != null) {
+            owners.computeIfPresent(username, (name, current) -> current == user ? null : current);
+        }
+    }
+
+    boolean isTaken(String username) {
+        Object current = owners.get(username);
+        return current != null && !isStale(username, current);
+    }
+
+    Optional<User> find(String username) {
+        Object current = owners.get(username);
+        if (current instanceof User user && !isStale(username, user)) {
+            return Optional.of(user);
+        }
+        return Optional.empty();
+    }
+
+    void clear() {
+        owners.clear();
+    }
+
+    // entries go stale when a stored user is renamed in place
+    private static boolean isStale(String username, Object current) {
+        return current instanceof User user && !username.equals(user.getUsername());
+    }
+
+    private static boolean sameOwner(User a, User b) {
+        return a.getClass() == b.getClass() && Objects.equals(a.getUserId(), b.getUserId());
+    }
+}
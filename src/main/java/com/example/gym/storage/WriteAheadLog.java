@@ -0,0 +1,510 @@
+package com.example.gym.storage;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Durable log of storage mutations. Callers block until their record is on disk;
+ * a single flusher thread writes whatever has queued up since the last fsync in
+ * one batch (group commit), so concurrent writers share the cost of each fsync.
+ * <p>
+ * The log is split into segments named after the first sequence number (LSN) they
+ * may contain. Taking a snapshot rolls to a new segment and drops the older ones.
+ * Each record is framed as {@code length, crc, lsn, op, tag, id, payload}; replay
+ * stops at the first torn or corrupt record of a segment.
+ * <p>
+ * Every segment starts with a header naming the {@link EntityCodec#VERSION} its
+ * payloads are encoded with; replay only reads segments of the current version.
+ * <p>
+ * Replay applies records in LSN order, so writers that change storage pass the
+ * change in as well: it runs under a lock striped by entity id, together with
+ * taking the LSN, and records of one id are logged in the order they were applied.
+ * The lock is held until the record is on disk; if it cannot be written, the
+ * change is undone first, so storage only keeps what a replay would restore.
+ * Writers of different stripes still share fsyncs.
+ * <p>
+ * A failed write or fsync leaves the log in an unknown state, so it stops the
+ * log for good: pending and later writers fail instead of waiting.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.wal.enabled", havingValue = "true")
+@Slf4j
+public class WriteAheadLog {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int MAGIC = 0x47594D57;
+    private static final int SEGMENT_HEADER_SIZE = Integer.BYTES * 2;
+    private static final String PREFIX = "wal-";
+    private static final String SUFFIX = ".log";
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int BODY_HEADER_SIZE = Long.BYTES + 2 + Long.BYTES;
+    private static final int LOCK_STRIPES = 64;
+
+    private final InMemoryStorage storage;
+    private final Path directory;
+    private final int maxBatch;
+    private final BlockingQueue<Request> queue = new LinkedBlockingQueue<>();
+    private final Thread flusher;
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private FileChannel channel;
+    private long nextLsn;
+    private RuntimeException stopped;
+
+    public WriteAheadLog(InMemoryStorage storage,
+                         @Value("${storage.wal.dir:data/wal}") String directory,
+                         @Value("${storage.wal.max-batch:1024}") int maxBatch) throws IOException {
+        this.storage = storage;
+        this.directory = Path.of(directory);
+        this.maxBatch = maxBatch;
+        Files.createDirectories(this.directory);
+        this.nextLsn = lastLsn(this.directory) + 1;
+        this.channel = openSegment(nextLsn);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.flusher = new Thread(this::flushLoop, "wal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        log.info("Write-ahead log opened in {} at lsn {}", this.directory, nextLsn);
+    }
+
+    /**
+     * Runs {@code apply}, which changes storage and returns the entity now stored
+     * under {@code id}, and logs that entity as one ordered step; then waits for
+     * the record to be on disk. Nothing is logged if {@code apply} throws.
+     */
+    public <T> void applyAndLogPut(Class<T> entityClass, long id, Supplier<? extends T> apply) {
+        EntityCodec<T> codec = EntityCodecs.forClass(entityClass);
+        applyAndLog(entityClass, List.of(id), PUT, codec.getTag(), apply,
+                entity -> Map.of(id, encode(codec, entity)));
+    }
+
+    public void applyAndLogDelete(Class<?> entityClass, long id, Runnable apply) {
+        applyAndLogDeleteAll(entityClass, List.of(id), apply);
+    }
+
+    /**
+     * Like {@link #applyAndLogPut} for a batch: {@code apply} stores all of
+     * {@code entities}, and their records are logged in the same step as
+     * consecutive records, waited for once.
+     */
+    public <T> void applyAndLogPutAll(Class<T> entityClass, Map<Long, ? extends T> entities, Runnable apply) {
+        EntityCodec<T> codec = EntityCodecs.forClass(entityClass);
+        applyAndLog(entityClass, entities.keySet(), PUT, codec.getTag(), () -> {
+            apply.run();
+            return entities;
+        }, stored -> {
+            Map<Long, byte[]> payloads = new LinkedHashMap<>();
+            stored.forEach((id, entity) -> payloads.put(id, encode(codec, entity)));
+            return payloads;
+        });
+    }
+
+    public void applyAndLogDeleteAll(Class<?> entityClass, Collection<Long> ids, Runnable apply) {
+        applyAndLog(entityClass, ids, DELETE, EntityCodecs.forClass(entityClass).getTag(), () -> {
+            apply.run();
+            return ids;
+        }, deleted -> {
+            Map<Long, byte[]> payloads = new LinkedHashMap<>();
+            deleted.forEach(id -> payloads.put(id, new byte[0]));
+            return payloads;
+        });
+    }
+
+    /**
+     * Runs {@code apply} and logs the records made from its result, holding the
+     * locks of {@code ids} until they are on disk. If they cannot be logged, the
+     * storage change is undone before the failure is rethrown, so memory never
+     * keeps a change that a restart would lose.
+     */
+    private <R> void applyAndLog(Class<?> entityClass, Collection<Long> ids, byte op, byte tag,
+                                 Supplier<R> apply, Function<R, Map<Long, byte[]>> records) {
+        ordered(entityClass, ids, () -> {
+            Runnable undo = storage.undoFor(entityClass, ids);
+            R result = apply.get();
+            try {
+                awaitAll(submit(op, tag, records.apply(result)));
+            } catch (RuntimeException e) {
+                try {
+                    undo.run();
+                } catch (RuntimeException undoFailure) {
+                    e.addSuppressed(undoFailure);
+                }
+                throw e;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Runs {@code step} holding the lock stripes of all {@code ids}, taken in
+     * stripe order so that overlapping batches cannot deadlock.
+     */
+    private <R> R ordered(Class<?> entityClass, Collection<Long> ids, Supplier<R> step) {
+        int[] held = ids.stream()
+                .mapToInt(id -> Math.floorMod(31 * entityClass.hashCode() + Long.hashCode(id), LOCK_STRIPES))
+                .distinct()
+                .sorted()
+                .toArray();
+        for (int stripe : held) {
+            stripes[stripe].lock();
+        }
+        try {
+            return step.get();
+        } finally {
+            for (int stripe : held) {
+                stripes[stripe].unlock();
+            }
+        }
+    }
+
+    private static <T> byte[] encode(EntityCodec<T> codec, T entity) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            codec.write(new DataOutputStream(bytes), entity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Starts a new segment and returns its first LSN. Every record logged before
+     * this call has a lower LSN and is on disk when it returns.
+     */
+    public long roll() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        long boundary;
+        synchronized (this) {
+            checkRunning();
+            boundary = nextLsn;
+            queue.add(new Roll(boundary, done));
+        }
+        await(done);
+        return boundary;
+    }
+
+    /**
+     * Deletes the segments that only hold records below {@code lsn}.
+     */
+    public void deleteSegmentsBefore(long lsn) throws IOException {
+        List<Path> segments = segments(directory);
+        for (int i = 0; i + 1 < segments.size() && startLsn(segments.get(i + 1)) <= lsn; i++) {
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    /**
+     * Flushes and closes the log. Returns at once if it has already stopped.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (this) {
+            if (stopped != null) {
+                return;
+            }
+            queue.add(new Close(done));
+        }
+        await(done);
+        flusher.join();
+    }
+
+    /**
+     * Applies every record with an LSN of at least {@code fromLsn} to the storage,
+     * in log order. Returns the number of records applied.
+     */
+    public static int replay(Path directory, long fromLsn, InMemoryStorage storage) throws IOException {
+        int applied = 0;
+        for (Path segment : segments(directory)) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+            checkHeader(segment, data);
+            while (data.remaining() >= HEADER_SIZE) {
+                int length = data.getInt();
+                int crc = data.getInt();
+                if (length < BODY_HEADER_SIZE || length > data.remaining() || crc(data, length) != crc) {
+                    log.warn("Stopping replay of {} at torn record, offset {}", segment, data.position());
+                    break;
+                }
+                long lsn = data.getLong();
+                byte op = data.get();
+                EntityCodec<?> codec = EntityCodecs.byTag(data.get());
+                long id = data.getLong();
+                byte[] payload = new byte[length - BODY_HEADER_SIZE];
+                data.get(payload);
+                if (lsn >= fromLsn) {
+                    apply(storage, codec, op, id, payload);
+                    applied++;
+                }
+            }
+        }
+        log.info("Replayed {} write-ahead log records from {}", applied, directory);
+        return applied;
+    }
+
+    private List<CompletableFuture<Void>> submit(byte op, byte tag, Map<Long, byte[]> payloads) {
+        List<CompletableFuture<Void>> pending = new ArrayList<>(payloads.size());
+        synchronized (this) {
+            checkRunning();
+            payloads.forEach((id, payload) -> {
+                CompletableFuture<Void> done = new CompletableFuture<>();
+                queue.add(new Append(nextLsn++, op, tag, id, payload, done));
+                pending.add(done);
+            });
+        }
+        return pending;
+    }
+
+    private void checkRunning() {
+        if (stopped instanceof UncheckedIOException failure) {
+            throw new UncheckedIOException(failure.getMessage(), failure.getCause());
+        }
+        if (stopped != null) {
+            throw new IllegalStateException(stopped.getMessage(), stopped.getCause());
+        }
+    }
+
+    private void flushLoop() {
+        RuntimeException failure = new IllegalStateException("Write-ahead log is closed");
+        List<Request> batch = List.of();
+        try {
+            boolean open = true;
+            while (open) {
+                batch = new ArrayList<>();
+                batch.add(queue.take());
+                queue.drainTo(batch, maxBatch - 1);
+                open = process(batch);
+            }
+        } catch (IOException e) {
+            log.error("Write-ahead log write failed, no further writes are accepted", e);
+            failure = new UncheckedIOException("Write-ahead log failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException | Error e) {
+            log.error("Write-ahead log flusher failed, no further writes are accepted", e);
+            failure = new IllegalStateException("Write-ahead log failed", e);
+        } finally {
+            stop(failure, batch);
+        }
+    }
+
+    /**
+     * Marks the log as stopped and fails the last batch and every request still
+     * queued; writers check the mark under the same lock before queueing, so none
+     * is left waiting. Requests that already completed are not affected.
+     */
+    private synchronized void stop(RuntimeException failure, List<Request> lastBatch) {
+        stopped = failure;
+        List<Request> abandoned = new ArrayList<>(lastBatch);
+        queue.drainTo(abandoned);
+        abandoned.forEach(request -> request.done().completeExceptionally(failure));
+    }
+
+    /**
+     * Writes one batch and completes its requests. Returns false once the log is closed.
+     */
+    private boolean process(List<Request> batch) throws IOException {
+        List<CompletableFuture<Void>> pending = new ArrayList<>();
+        for (Request request : batch) {
+            if (request instanceof Append append) {
+                writeFrame(append);
+                pending.add(append.done());
+            } else if (request instanceof Roll roll) {
+                flush(pending);
+                channel.force(true);
+                channel.close();
+                channel = openSegment(roll.boundary());
+                roll.done().complete(null);
+            } else if (request instanceof Close close) {
+                flush(pending);
+                channel.force(true);
+                channel.close();
+                close.done().complete(null);
+                return false;
+            }
+        }
+        flush(pending);
+        return true;
+    }
+
+    private void writeFrame(Append append) throws IOException {
+        int length = BODY_HEADER_SIZE + append.payload().length;
+        if (buffer.remaining() < HEADER_SIZE + length) {
+            writeBuffer();
+            if (buffer.capacity() < HEADER_SIZE + length) {
+                buffer = ByteBuffer.allocateDirect(HEADER_SIZE + length);
+            }
+        }
+        int start = buffer.position();
+        buffer.putInt(length).putInt(0)
+                .putLong(append.lsn()).put(append.op()).put(append.tag()).putLong(append.id())
+                .put(append.payload());
+        ByteBuffer body = buffer.duplicate().position(start + HEADER_SIZE).limit(buffer.position());
+        buffer.putInt(start + Integer.BYTES, crc(body, length));
+    }
+
+    private void flush(List<CompletableFuture<Void>> pending) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        writeBuffer();
+        channel.force(false);
+        pending.forEach(done -> done.complete(null));
+        pending.clear();
+    }
+
+    private void writeBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private FileChannel openSegment(long firstLsn) throws IOException {
+        FileChannel segment = FileChannel.open(directory.resolve(PREFIX + firstLsn + SUFFIX),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE).putInt(MAGIC).putInt(EntityCodec.VERSION).flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        return segment;
+    }
+
+    private static void await(CompletableFuture<Void> done) {
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void awaitAll(List<CompletableFuture<Void>> pending) {
+        pending.forEach(WriteAheadLog::await);
+    }
+
+    private static <T> void apply(InMemoryStorage storage, EntityCodec<T> codec, byte op, long id,
+                                  byte[] payload) throws IOException {
+        if (op == PUT) {
+            T entity = codec.read(new DataInputStream(new ByteArrayInputStream(payload)));
+            storage.put(codec.getEntityClass(), id, entity);
+            storage.initializeIdCounter(codec.getEntityClass(), id);
+        } else if (op == DELETE) {
+            storage.delete(codec.getEntityClass(), id);
+        }
+    }
+
+    private static int crc(ByteBuffer data, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data.duplicate().limit(data.position() + length));
+        return (int) crc.getValue();
+    }
+
+    private static long lastLsn(Path directory) throws IOException {
+        List<Path> segments = segments(directory);
+        if (segments.isEmpty()) {
+            return 0;
+        }
+        Path newest = segments.get(segments.size() - 1);
+        long last = startLsn(newest) - 1;
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(newest));
+        checkHeader(newest, data);
+        while (data.remaining() >= HEADER_SIZE) {
+            int length = data.getInt();
+            int crc = data.getInt();
+            if (length < BODY_HEADER_SIZE || length > data.remaining() || crc(data, length) != crc) {
+                break;
+            }
+            last = data.getLong(data.position());
+            data.position(data.position() + length);
+        }
+        return last;
+    }
+
+    /**
+     * Reads past the segment header, checking its codec version. A segment cut
+     * off before its header was complete holds no records.
+     */
+    private static void checkHeader(Path segment, ByteBuffer data) throws IOException {
+        if (data.remaining() < SEGMENT_HEADER_SIZE) {
+            data.position(data.limit());
+            return;
+        }
+        if (data.getInt() != MAGIC) {
+            throw new IOException("Not a write-ahead log segment: " + segment);
+        }
+        int version = data.getInt();
+        if (version != EntityCodec.VERSION) {
+            throw new IOException("Unsupported codec version " + version + " in " + segment);
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+                    })
+                    .sorted(Comparator.comparingLong(WriteAheadLog::startLsn))
+                    .toList();
+        }
+    }
+
+    private static long startLsn(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private sealed interface Request permits Append, Roll, Close {
+        CompletableFuture<Void> done();
+    }
+
+    private record Append(long lsn, byte op, byte tag, long id, byte[] payload,
+                          CompletableFuture<Void> done) implements Request {
+    }
+
+    private record Roll(long boundary, CompletableFuture<Void> done) implements Request {
+    }
+
+    private record Close(CompletableFuture<Void> done) implements Request {
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.gym.utils;
+
+import java.time.LocalTime;
+
+/**
+ * Converts times of day ({@code HH:mm}) to and from the minute of the day,
+ * the compact form in which training start times are stored.
+ */
+public final class DayMinutes {
+
+    /** Marker for an unset time. */
+    public static final int NONE = -1;
+
+    public static final int PER_DAY = 24 * 60;
+
+    private DayMinutes() {
+    }
+
+    public static int parse(String time) {
+        if (time == null) {
+            return NONE;
+        }
+        LocalTime parsed = LocalTime.parse(time);
+        return parsed.getHour() * 60 + parsed.getMinute();
+    }
+
+    public static String format(int minuteOfDay) {
+        return minuteOfDay == NONE ? null : LocalTime.of(minuteOfDay / 60, minuteOfDay % 60).toString();
+    }
+}
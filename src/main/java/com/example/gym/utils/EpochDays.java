@@ -0,0 +1,28 @@
+package com.example.gym.utils;
+
+import java.time.LocalDate;
+
+/**
+ * Converts ISO-8601 dates ({@code yyyy-MM-dd}) to and from primitive epoch days,
+ * the compact form in which model dates are stored.
+ */
+public final class EpochDays {
+
+    /** Marker for an unset date. */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    private EpochDays() {
+    }
+
+    public static int parse(String isoDate) {
+        return isoDate == null ? NONE : Math.toIntExact(LocalDate.parse(isoDate).toEpochDay());
+    }
+
+    public static String format(int epochDay) {
+        return epochDay == NONE ? null : LocalDate.ofEpochDay(epochDay).toString();
+    }
+
+    public static Long boxed(int epochDay) {
+        return epochDay == NONE ? null : (long) epochDay;
+    }
+}
@@ -3,6 +3,11 @@ package com.example.gym.utils;
 import org.springframework.stereotype.Component;
 
 import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 @Component
@@ -12,25 +17,58 @@ public class UserCredentialsGenerator {
             "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
     private static final int PASSWORD_LENGTH = 10;
 
+    /**
+     * One generator per thread: seeding a {@link SecureRandom} is expensive and may
+     * block on entropy, and sharing a single instance serializes callers on its lock.
+     */
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(SecureRandom::new);
+
+    private final Map<String, AtomicInteger> nextSuffixes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the first candidate of {@code base}, {@code base1}, {@code base2}, ... that
+     * {@code usernameExists} rejects. Suffixes already handed out for a base name are
+     * never probed again, so repeated names cost O(1) and concurrent callers always get
+     * distinct candidates.
+     */
     public String generateUsername(String firstName, String lastName,
                                    Predicate<String> usernameExists) {
         String baseUsername = firstName + "." + lastName;
-        String username = baseUsername;
-        int counter = 0;
+        AtomicInteger nextSuffix = nextSuffixes.computeIfAbsent(baseUsername, base -> new AtomicInteger());
 
-        while (usernameExists.test(username)) {
-            counter++;
-            username = baseUsername + counter;
+        while (true) {
+            int counter = nextSuffix.getAndIncrement();
+            String username = counter == 0 ? baseUsername : baseUsername + counter;
+            if (!usernameExists.test(username)) {
+                return username;
+            }
         }
-        return username;
     }
 
     public String generatePassword() {
-        SecureRandom random = new SecureRandom();
-        StringBuilder sb = new StringBuilder(PASSWORD_LENGTH);
-        for (int i = 0; i < PASSWORD_LENGTH; i++) {
-            sb.append(PASSWORD_CHARS.charAt(random.nextInt(PASSWORD_CHARS.length())));
+        return generatePassword(RANDOM.get(), new char[PASSWORD_LENGTH]);
+    }
+
+    /**
+     * Generates {@code count} independent passwords, for bulk onboarding.
+     */
+    public List<String> generatePasswords(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count must not be negative: " + count);
+        }
+        SecureRandom random = RANDOM.get();
+        char[] buffer = new char[PASSWORD_LENGTH];
+        List<String> passwords = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            passwords.add(generatePassword(random, buffer));
+        }
+        return passwords;
+    }
+
+    private static String generatePassword(SecureRandom random, char[] buffer) {
+        for (int i = 0; i < buffer.length; i++) {
+            buffer[i] = PASSWORD_CHARS.charAt(random.nextInt(PASSWORD_CHARS.length()));
         }
-        return sb.toString();
+        return new String(buffer);
     }
 }
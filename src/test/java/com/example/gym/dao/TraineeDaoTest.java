@@ -1,7 +1,9 @@
 package com.example.gym.dao;
 
 import com.example.gym.exception.EntityNotFoundException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.model.Trainee;
+import com.example.gym.model.Trainer;
 import com.example.gym.storage.InMemoryStorage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -82,6 +84,32 @@ class TraineeDaoTest {
         }
     }
 
+    @Nested
+    @DisplayName("Versioned update operations")
+    class UpdateTests {
+
+        @Test
+        @DisplayName("Should replace through storage with the expected version")
+        void updateShouldCompareAndSetInStorage() {
+            when(storage.replace(Trainee.class, 1L, 3L, trainee)).thenReturn(trainee);
+
+            Trainee result = traineeDao.update(trainee, 3L);
+
+            assertSame(trainee, result);
+            verify(storage).replace(Trainee.class, 1L, 3L, trainee);
+            verify(storage, never()).put(any(), anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("Should propagate version conflicts")
+        void updateShouldPropagateConflict() {
+            when(storage.replace(Trainee.class, 1L, 0L, trainee))
+                    .thenThrow(new VersionConflictException("Trainee", 1L, 0L, 1L));
+
+            assertThrows(VersionConflictException.class, () -> traineeDao.update(trainee, 0L));
+        }
+    }
+
     @Nested
     @DisplayName("FindById operations")
     class FindByIdTests {
@@ -186,4 +214,32 @@ class TraineeDaoTest {
             assertFalse(result);
         }
     }
+
+    @Nested
+    @DisplayName("FindByUsername operations")
+    class FindByUsernameTests {
+
+        @Test
+        @DisplayName("Should return trainee owning the username")
+        void findByUsernameShouldReturnTrainee() {
+            when(storage.findByUsername("John.Doe")).thenReturn(Optional.of(trainee));
+
+            Optional<Trainee> result = traineeDao.findByUsername("John.Doe");
+
+            assertTrue(result.isPresent());
+            assertEquals(1L, result.get().getUserId());
+        }
+
+        @Test
+        @DisplayName("Should return empty when username belongs to a trainer")
+        void findByUsernameShouldIgnoreOtherUserTypes() {
+            Trainer trainer = new Trainer();
+            trainer.setUsername("John.Doe");
+            when(storage.findByUsername("John.Doe")).thenReturn(Optional.of(trainer));
+
+            Optional<Trainee> result = traineeDao.findByUsername("John.Doe");
+
+            assertTrue(result.isEmpty());
+        }
+    }
 }
@@ -199,4 +199,21 @@ class TrainerDaoTest {
             assertFalse(result);
         }
     }
+
+    @Nested
+    @DisplayName("Matching operations")
+    class MatchingTests {
+
+        @Test
+        @DisplayName("Should match trainers through the storage index without scanning")
+        void findMatchingShouldUseIndex() {
+            Trainer trainer = new Trainer();
+            when(storage.matchTrainers(eq("Cardio"), any(), eq(5))).thenReturn(List.of(trainer));
+
+            List<Trainer> result = trainerDao.findMatching("Cardio", 5);
+
+            assertEquals(List.of(trainer), result);
+            verify(storage, never()).getByCondition(any(), any());
+        }
+    }
 }
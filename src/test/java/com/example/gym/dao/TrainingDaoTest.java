@@ -1,9 +1,14 @@
 package com.example.gym.dao;
 
 import com.example.gym.exception.EntityNotFoundException;
+import com.example.gym.exception.ScheduleConflictException;
 import com.example.gym.model.Training;
 import com.example.gym.model.TrainingType;
+import com.example.gym.query.Query;
+import com.example.gym.query.TrainingStats;
 import com.example.gym.storage.InMemoryStorage;
+import com.example.gym.storage.OwnerDayKey;
+import com.example.gym.storage.TrainingAggregates;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -13,7 +18,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -109,6 +116,32 @@ class TrainingDaoTest {
         }
     }
 
+    @Nested
+    @DisplayName("Scheduled save operations")
+    class SaveScheduledTests {
+
+        @Test
+        @DisplayName("Should generate an id and store through the conflict-checking put")
+        void saveScheduledShouldUseScheduledPut() {
+            training.setTrainingId(null);
+            when(storage.generateId(Training.class)).thenReturn(5L);
+
+            Training result = trainingDao.saveScheduled(training);
+
+            assertEquals(5L, result.getTrainingId());
+            verify(storage).putScheduled(5L, training);
+            verify(storage, never()).put(any(), anyLong(), any());
+        }
+
+        @Test
+        @DisplayName("Should propagate schedule conflicts")
+        void saveScheduledShouldPropagateConflicts() {
+            doThrow(new ScheduleConflictException(1L, List.of(2L))).when(storage).putScheduled(1L, training);
+
+            assertThrows(ScheduleConflictException.class, () -> trainingDao.saveScheduled(training));
+        }
+    }
+
     @Nested
     @DisplayName("FindById operations")
     class FindByIdTests {
@@ -197,6 +230,168 @@ class TrainingDaoTest {
         }
     }
 
+    @Nested
+    @DisplayName("Batch operations")
+    class BatchTests {
+
+        @Test
+        @DisplayName("Should assign ids from one reserved block and store the batch at once")
+        void saveAllShouldReserveIdBlock() {
+            Training first = Training.builder().trainingName("First").build();
+            Training second = Training.builder().trainingName("Second").build();
+            when(storage.reserveIds(Training.class, 2)).thenReturn(10L);
+
+            List<Training> result = trainingDao.saveAll(List.of(first, second, training));
+
+            assertEquals(10L, first.getTrainingId());
+            assertEquals(11L, second.getTrainingId());
+            assertEquals(3, result.size());
+            verify(storage).putAll(Training.class, Map.of(10L, first, 11L, second, 1L, training));
+            verify(storage, never()).generateId(any());
+        }
+
+        @Test
+        @DisplayName("Should not reserve ids when every entity already has one")
+        void saveAllShouldNotReserveIdsForExistingEntities() {
+            trainingDao.saveAll(List.of(training));
+
+            verify(storage, never()).reserveIds(any(), anyInt());
+            verify(storage).putAll(Training.class, Map.of(1L, training));
+        }
+
+        @Test
+        @DisplayName("Should store a scheduled batch through the schedule check")
+        void saveAllScheduledShouldCheckSchedule() {
+            Training first = Training.builder().trainingName("First").build();
+            when(storage.reserveIds(Training.class, 1)).thenReturn(10L);
+
+            trainingDao.saveAllScheduled(List.of(first, training));
+
+            verify(storage).putAllScheduled(Map.of(10L, first, 1L, training));
+            verify(storage, never()).putAll(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should delete the batch in one storage call")
+        void deleteAllByIdShouldDeleteBatch() {
+            trainingDao.deleteAllById(List.of(1L, 2L));
+
+            verify(storage).deleteAll(Training.class, List.of(1L, 2L));
+        }
+    }
+
+    @Nested
+    @DisplayName("Indexed lookups")
+    class IndexedLookupTests {
+
+        @Test
+        @DisplayName("Should pass declarative queries to the storage planner")
+        void findByQueryShouldDelegateToStorage() {
+            Query query = Query.eq("traineeId", 1L);
+            when(storage.query(Training.class, query)).thenReturn(List.of(training));
+
+            List<Training> result = trainingDao.findByQuery(query);
+
+            assertEquals(List.of(training), result);
+            verify(storage, never()).getByCondition(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should find trainings by trainee id through the index")
+        void findByTraineeIdShouldUseIndex() {
+            when(storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 1L))
+                    .thenReturn(List.of(training));
+
+            List<Training> result = trainingDao.findByTraineeId(1L);
+
+            assertEquals(List.of(training), result);
+            verify(storage, never()).getByCondition(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should find trainings by trainer id through the index")
+        void findByTrainerIdShouldUseIndex() {
+            when(storage.getByIndex(Training.class, InMemoryStorage.TRAINER_ID_INDEX, 1L))
+                    .thenReturn(List.of(training));
+
+            List<Training> result = trainingDao.findByTrainerId(1L);
+
+            assertEquals(List.of(training), result);
+        }
+
+        @Test
+        @DisplayName("Should find trainings by type id through the index")
+        void findByTypeIdShouldUseIndex() {
+            when(storage.getByIndex(Training.class, InMemoryStorage.TRAINING_TYPE_ID_INDEX, 1L))
+                    .thenReturn(List.of(training));
+
+            List<Training> result = trainingDao.findByTypeId(1L);
+
+            assertEquals(List.of(training), result);
+        }
+
+        @Test
+        @DisplayName("Should find trainings by date range as epoch days")
+        void findByDateRangeShouldUseSortedIndex() {
+            LocalDate from = LocalDate.parse("2024-01-01");
+            LocalDate to = LocalDate.parse("2024-01-31");
+            when(storage.getByRange(Training.class, InMemoryStorage.TRAINING_DATE_INDEX,
+                    from.toEpochDay(), to.toEpochDay())).thenReturn(List.of(training));
+
+            List<Training> result = trainingDao.findByDateRange(from, to);
+
+            assertEquals(List.of(training), result);
+        }
+
+        @Test
+        @DisplayName("Should find trainee trainings by date range")
+        void findByTraineeIdAndDateRangeShouldUseCompositeIndex() {
+            LocalDate from = LocalDate.parse("2024-01-01");
+            LocalDate to = LocalDate.parse("2024-01-31");
+            when(storage.getByRange(Training.class, InMemoryStorage.TRAINEE_DATE_INDEX,
+                    new OwnerDayKey(1L, from.toEpochDay()), new OwnerDayKey(1L, to.toEpochDay())))
+                    .thenReturn(List.of(training));
+
+            List<Training> result = trainingDao.findByTraineeIdAndDateRange(1L, from, to);
+
+            assertEquals(List.of(training), result);
+        }
+    }
+
+    @Nested
+    @DisplayName("Statistics")
+    class StatisticsTests {
+
+        @Mock
+        private TrainingAggregates aggregates;
+
+        @BeforeEach
+        void setUp() {
+            when(storage.trainingAggregates()).thenReturn(aggregates);
+        }
+
+        @Test
+        @DisplayName("Should read trainee totals from the aggregates")
+        void statsForTraineeShouldUseAggregates() {
+            when(aggregates.forTrainee(1L)).thenReturn(new TrainingStats(2, 90));
+
+            assertEquals(new TrainingStats(2, 90), trainingDao.statsForTrainee(1L));
+            verify(storage, never()).getByCondition(any(), any());
+        }
+
+        @Test
+        @DisplayName("Should read date range totals as epoch days")
+        void statsForDateRangeShouldPassEpochDays() {
+            LocalDate from = LocalDate.parse("2024-01-01");
+            LocalDate to = LocalDate.parse("2024-01-31");
+            when(aggregates.forTrainer(1L, from.toEpochDay(), to.toEpochDay())).thenReturn(new TrainingStats(1, 60));
+            when(aggregates.forDays(from.toEpochDay(), to.toEpochDay())).thenReturn(new TrainingStats(3, 150));
+
+            assertEquals(new TrainingStats(1, 60), trainingDao.statsForTrainer(1L, from, to));
+            assertEquals(new TrainingStats(3, 150), trainingDao.statsForDateRange(from, to));
+        }
+    }
+
     @Nested
     @DisplayName("Delete operations")
     class DeleteTests {
@@ -3,6 +3,8 @@ package com.example.gym.facade;
 import com.example.gym.model.Trainee;
 import com.example.gym.model.Trainer;
 import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import com.example.gym.query.TimeSlot;
 import com.example.gym.service.TraineeService;
 import com.example.gym.service.TrainerService;
 import com.example.gym.service.TrainingService;
@@ -13,6 +15,9 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -65,6 +70,35 @@ class GymFacadeTest {
         verify(traineeService, times(1)).create(trainee);
     }
 
+    @Test
+    @DisplayName("CreateTrainees should delegate the batch to TraineeService")
+    void createTraineesShouldDelegateToService() {
+        when(traineeService.createAll(List.of(trainee))).thenReturn(List.of(trainee));
+
+        List<Trainee> result = gymFacade.createTrainees(List.of(trainee));
+
+        assertEquals(List.of(trainee), result);
+        verify(traineeService, times(1)).createAll(List.of(trainee));
+    }
+
+    @Test
+    @DisplayName("DeleteTrainees should delegate the batch to TraineeService")
+    void deleteTraineesShouldDelegateToService() {
+        gymFacade.deleteTrainees(List.of(1L, 2L));
+
+        verify(traineeService, times(1)).deleteAll(List.of(1L, 2L));
+    }
+
+    @Test
+    @DisplayName("CreateTrainings should delegate the batch to TrainingService")
+    void createTrainingsShouldDelegateToService() {
+        when(trainingService.createAll(List.of(training))).thenReturn(List.of(training));
+
+        List<Training> result = gymFacade.createTrainings(List.of(training));
+
+        assertEquals(List.of(training), result);
+    }
+
     @Test
     @DisplayName("SelectTrainee should delegate to TraineeService")
     void selectTraineeShouldDelegateToService() {
@@ -158,6 +192,30 @@ class GymFacadeTest {
         verify(trainingService, times(1)).select(1L);
     }
 
+    @Test
+    @DisplayName("MatchTrainers should delegate to TrainerService")
+    void matchTrainersShouldDelegateToService() {
+        TrainingType cardio = TrainingType.builder().trainingTypeId(1L).trainingTypeName("Cardio").build();
+        when(trainerService.findMatching(cardio, 3)).thenReturn(List.of(trainer));
+
+        List<Trainer> result = gymFacade.matchTrainers(cardio, 3);
+
+        assertEquals(List.of(trainer), result);
+    }
+
+    @Test
+    @DisplayName("FindTrainerFreeSlots should delegate to TrainingService")
+    void findTrainerFreeSlotsShouldDelegateToService() {
+        LocalDateTime from = LocalDateTime.parse("2024-01-15T08:00");
+        LocalDateTime to = LocalDateTime.parse("2024-01-15T18:00");
+        List<TimeSlot> slots = List.of(new TimeSlot(from, to));
+        when(trainingService.findTrainerFreeSlots(1L, from, to, 60)).thenReturn(slots);
+
+        List<TimeSlot> result = gymFacade.findTrainerFreeSlots(1L, from, to, 60);
+
+        assertEquals(slots, result);
+    }
+
     @Test
     @DisplayName("Facade should use constructor injection")
     void facadeShouldUseConstructorInjection() {
@@ -0,0 +1,82 @@
+package com.example.gym.logging;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.core.spi.FilterReply;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotPathSamplingFilterTest {
+
+    private HotPathSamplingFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        filter = new HotPathSamplingFilter();
+    }
+
+    private FilterReply decide(Level level) {
+        return filter.decide(LogMarkers.HOT_PATH, null, level, "message", null, null);
+    }
+
+    private long allowed(int calls) {
+        return IntStream.range(0, calls)
+                .mapToObj(i -> decide(Level.INFO))
+                .filter(reply -> reply == FilterReply.NEUTRAL)
+                .count();
+    }
+
+    @Test
+    @DisplayName("Full mode should let every hot path line through")
+    void fullModeShouldAllowEverything() {
+        assertEquals(1000, allowed(1000));
+    }
+
+    @Test
+    @DisplayName("Off mode should drop hot path lines but keep warnings")
+    void offModeShouldDropHotPathLines() {
+        filter.setMode("off");
+
+        assertEquals(FilterReply.DENY, decide(Level.INFO));
+        assertEquals(FilterReply.NEUTRAL, decide(Level.WARN));
+    }
+
+    @Test
+    @DisplayName("Lines without the hot path marker should never be filtered")
+    void unmarkedLinesShouldPassThrough() {
+        filter.setMode("off");
+
+        assertEquals(FilterReply.NEUTRAL, filter.decide(null, null, Level.INFO, "message", null, null));
+    }
+
+    @Test
+    @DisplayName("Rate limited mode should cap lines per second")
+    void rateLimitedModeShouldCapLines() {
+        filter.setMode("rate-limited");
+        filter.setMaxPerSecond(5);
+
+        assertEquals(5, allowed(100));
+    }
+
+    @Test
+    @DisplayName("Sampled mode should let roughly one in sample rate lines through")
+    void sampledModeShouldThinOutLines() {
+        filter.setMode("sampled");
+        filter.setSampleRate(10);
+
+        long allowed = allowed(10_000);
+
+        assertTrue(allowed > 500 && allowed < 2000, "allowed: " + allowed);
+    }
+
+    @Test
+    @DisplayName("Invalid settings should be rejected")
+    void invalidSettingsShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class, () -> filter.setMode("verbose"));
+        assertThrows(IllegalArgumentException.class, () -> filter.setSampleRate(0));
+    }
+}
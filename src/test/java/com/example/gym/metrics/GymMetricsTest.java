@@ -0,0 +1,60 @@
+package com.example.gym.metrics;
+
+import com.example.gym.model.Trainee;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GymMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private GymMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new GymMetrics(registry);
+    }
+
+    @Test
+    @DisplayName("timeFacade should record successful calls per operation")
+    void timeFacadeShouldRecordSuccessfulCalls() {
+        assertEquals("ok", metrics.timeFacade("selectTrainee", () -> "ok"));
+        metrics.timeFacade("selectTrainee", () -> "ok");
+
+        Timer timer = registry.get(GymMetrics.FACADE_TIMER)
+                .tag("operation", "selectTrainee")
+                .tag("outcome", "success")
+                .timer();
+        assertEquals(2, timer.count());
+    }
+
+    @Test
+    @DisplayName("timeDao should record failures under the error outcome and rethrow")
+    void timeDaoShouldRecordFailures() {
+        assertThrows(IllegalStateException.class, () -> metrics.timeDao(Trainee.class, "save", () -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        Timer timer = registry.get(GymMetrics.DAO_TIMER)
+                .tag("entity", "Trainee")
+                .tag("operation", "save")
+                .tag("outcome", "error")
+                .timer();
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    @DisplayName("noop instance should run the call without registering meters")
+    void noopShouldOnlyRunTheCall() {
+        int[] calls = {0};
+
+        GymMetrics.noop().timeFacade("deleteTrainee", () -> calls[0]++);
+
+        assertEquals(1, calls[0]);
+    }
+}
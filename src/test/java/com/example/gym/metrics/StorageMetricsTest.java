@@ -0,0 +1,51 @@
+package com.example.gym.metrics;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.storage.InMemoryStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static com.example.gym.storage.StorageFixtures.trainee;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageMetricsTest {
+
+    private InMemoryStorage storage;
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage();
+        registry = new SimpleMeterRegistry();
+        new StorageMetrics(storage).bindTo(registry);
+    }
+
+    @Test
+    @DisplayName("Gauges should report entity count and id counter per type")
+    void gaugesShouldReportCountsPerType() {
+        storage.put(Trainee.class, 1L, trainee(1L, true));
+        storage.put(Trainee.class, 2L, trainee(2L, true));
+        storage.initializeIdCounter(Trainee.class, 7L);
+
+        assertEquals(2.0, registry.get(StorageMetrics.ENTITIES_GAUGE).tag("entity", "Trainee").gauge().value());
+        assertEquals(7.0, registry.get(StorageMetrics.ID_COUNTER_GAUGE).tag("entity", "Trainee").gauge().value());
+        assertEquals(0.0, registry.get(StorageMetrics.ENTITIES_GAUGE).tag("entity", "Training").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Scans should count entities visited and matched")
+    void scansShouldCountVisitedAndMatched() {
+        storage.put(Trainee.class, 1L, trainee(1L, true));
+        storage.put(Trainee.class, 2L, trainee(2L, false));
+        storage.put(Trainee.class, 3L, trainee(3L, true));
+
+        storage.getByCondition(Trainee.class, Trainee::isActive);
+        storage.getByCondition(Trainee.class, t -> t.getUserId() == 2L);
+
+        assertEquals(6.0, registry.get(StorageMetrics.SCAN_VISITED).tag("entity", "Trainee").counter().count());
+        assertEquals(3.0, registry.get(StorageMetrics.SCAN_MATCHED).tag("entity", "Trainee").counter().count());
+        assertEquals(2, registry.get(StorageMetrics.SCAN_TIMER).tag("entity", "Trainee").timer().count());
+    }
+}
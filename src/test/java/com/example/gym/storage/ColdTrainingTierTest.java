@@ -0,0 +1,198 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import com.example.gym.query.Page;
+import com.example.gym.query.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static com.example.gym.storage.StorageFixtures.cardio;
+import static com.example.gym.storage.StorageFixtures.training;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColdTrainingTierTest {
+
+    private static final LocalDate CUTOFF = LocalDate.parse("2024-01-01");
+
+    @TempDir
+    Path directory;
+
+    private InMemoryStorage storage;
+    private ColdTrainingTier tier;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = newStorage();
+        tier = new ColdTrainingTier(storage, directory.toString(), 365, 1 << 16);
+        storage.put(Training.class, 1L, training(1L, 1L, 9L, "2023-03-10", 45));
+        storage.put(Training.class, 2L, training(2L, 2L, 9L, "2023-06-20", 45));
+        storage.put(Training.class, 3L, training(3L, 1L, 9L, "2024-02-01", 45));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        tier.close();
+    }
+
+    private InMemoryStorage newStorage() {
+        InMemoryStorage result = new InMemoryStorage();
+        result.put(TrainingType.class, 1L, cardio());
+        return result;
+    }
+
+    private List<Long> ids(List<Training> trainings) {
+        return trainings.stream().map(Training::getTrainingId).toList();
+    }
+
+    @Test
+    @DisplayName("Old trainings leave the heap partition and are still found by id")
+    void archiveShouldMoveOldTrainingsAndReadThrough() {
+        int moved = tier.archiveOlderThan(CUTOFF);
+
+        assertEquals(2, moved);
+        assertEquals(1, storage.size(Training.class));
+        assertEquals(2, tier.size());
+        Training archived = storage.<Training>get(Training.class, 1L).orElseThrow();
+        assertEquals(training(1L, 1L, 9L, "2023-03-10", 45), archived);
+        assertSame(storage.get(Training.class, 3L).orElseThrow().getTrainingType(), archived.getTrainingType());
+    }
+
+    @Test
+    @DisplayName("Date range queries merge both tiers in date order")
+    void rangeQueriesShouldIncludeColdTrainings() {
+        tier.archiveOlderThan(CUTOFF);
+
+        List<Training> all = storage.getByRange(Training.class, InMemoryStorage.TRAINING_DATE_INDEX,
+                LocalDate.parse("2023-01-01").toEpochDay(), LocalDate.parse("2024-12-31").toEpochDay());
+        List<Training> trainee = storage.getByRange(Training.class, InMemoryStorage.TRAINEE_DATE_INDEX,
+                new OwnerDayKey(1L, LocalDate.parse("2023-01-01").toEpochDay()),
+                new OwnerDayKey(1L, LocalDate.parse("2024-12-31").toEpochDay()));
+        List<Training> hotOnly = storage.getByRange(Training.class, InMemoryStorage.TRAINING_DATE_INDEX,
+                CUTOFF.toEpochDay(), null);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(all));
+        assertEquals(List.of(1L, 3L), ids(trainee));
+        assertEquals(List.of(3L), ids(hotOnly));
+    }
+
+    @Test
+    @DisplayName("Index lookups, queries, scans, streams and pages include archived trainings")
+    void readPathsShouldIncludeColdTrainings() {
+        tier.archiveOlderThan(CUTOFF);
+
+        assertEquals(List.of(3L, 1L), ids(storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 1L)));
+        assertEquals(Set.of(1L, 2L, 3L),
+                Set.copyOf(ids(storage.getByIndex(Training.class, InMemoryStorage.TRAINER_ID_INDEX, 9L))));
+        assertEquals(List.of(3L, 1L), ids(storage.query(Training.class, Query.eq("traineeId", 1L))));
+        assertEquals(List.of(3L, 2L), ids(storage.query(Training.class,
+                Query.or(Query.eq("trainingName", "Session 2"), Query.eq("trainingName", "Session 3")))));
+        assertEquals(3, storage.<Training>getByCondition(Training.class, training -> true).size());
+        assertEquals(List.of(3L, 1L), ids(storage.stream(Training.class, Query.eq("traineeId", 1L)).toList()));
+        assertEquals(List.of(2L), ids(storage.<Training>stream(Training.class,
+                training -> training.getTrainingId() == 2L).toList()));
+
+        Page<Training> first = storage.page(Training.class, null, null, 2);
+        Page<Training> second = storage.page(Training.class, null, first.nextAfterId(), 2);
+        assertEquals(List.of(1L, 2L), ids(first.items()));
+        assertEquals(List.of(3L), ids(second.items()));
+        assertNull(second.nextAfterId());
+        assertEquals(List.of(1L, 3L), ids(storage.page(Training.class, Query.eq("traineeId", 1L), null, 5).items()));
+    }
+
+    @Test
+    @DisplayName("Archived trainings leave the cold indexes when deleted and are re-indexed on reopen")
+    void coldIndexesShouldFollowDeletesAndReopen() throws IOException {
+        tier.archiveOlderThan(CUTOFF);
+        storage.delete(Training.class, 1L);
+
+        assertEquals(List.of(3L), ids(storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 1L)));
+
+        tier.close();
+        storage = newStorage();
+        tier = new ColdTrainingTier(storage, directory.toString(), 365, 1 << 16);
+
+        assertEquals(List.of(2L), ids(storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 2L)));
+        assertEquals(List.of(2L), ids(storage.query(Training.class, Query.eq("trainingTypeId", 1L))));
+    }
+
+    @Test
+    @DisplayName("Updating or deleting an archived training supersedes its cold record")
+    void writesShouldSupersedeColdRecords() {
+        tier.archiveOlderThan(CUTOFF);
+
+        Training updated = training(1L, 1L, 9L, "2023-03-11", 45);
+        storage.put(Training.class, 1L, updated);
+        storage.delete(Training.class, 2L);
+
+        assertEquals(updated, storage.get(Training.class, 1L).orElseThrow());
+        assertTrue(storage.get(Training.class, 2L).isEmpty());
+        assertEquals(0, tier.size());
+    }
+
+    @Test
+    @DisplayName("A failed batch leaves the archived trainings it touched in the cold tier")
+    void failedBatchShouldKeepColdRecords() throws IOException {
+        tier.archiveOlderThan(CUTOFF);
+        tier.close();
+        storage = newStorage();
+        storage.setTrainingBackend("offheap");
+        tier = new ColdTrainingTier(storage, directory.toString(), 365, 1 << 16);
+        Map<Long, Training> batch = new LinkedHashMap<>();
+        batch.put(1L, training(1L, 1L, 9L, "2023-03-11", 45));
+        batch.put(-1L, training(-1L, 1L, 9L, "2023-03-12", 45));
+
+        assertThrows(IllegalArgumentException.class, () -> storage.putAll(Training.class, batch));
+
+        assertEquals(2, tier.size());
+        assertEquals(0, storage.size(Training.class));
+        assertEquals(training(1L, 1L, 9L, "2023-03-10", 45), storage.get(Training.class, 1L).orElseThrow());
+        assertEquals(1, storage.trainingAggregates().forTrainee(1L).count());
+        long day = LocalDate.parse("2023-03-10").toEpochDay();
+        assertEquals(1, storage.trainingAggregates().forTrainee(1L, day, day).count());
+    }
+
+    @Test
+    @DisplayName("Reopening the segments restores the latest record of every id")
+    void reopenShouldReplaySegments() throws IOException {
+        tier.archiveOlderThan(CUTOFF);
+        storage.delete(Training.class, 2L);
+        tier.close();
+
+        storage = newStorage();
+        tier = new ColdTrainingTier(storage, directory.toString(), 365, 1 << 16);
+
+        assertEquals(1, tier.size());
+        assertEquals(1, storage.trainingAggregates().forTrainee(1L).count());
+        assertEquals("Session 1", storage.<Training>get(Training.class, 1L).orElseThrow().getTrainingName());
+        assertTrue(storage.get(Training.class, 2L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("A full segment rolls over to a new file")
+    void appendShouldRollSegments() throws IOException {
+        tier.close();
+        tier = new ColdTrainingTier(storage, directory.toString(), 365, 128);
+
+        tier.archiveOlderThan(CUTOFF);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(2, files.count());
+        }
+        assertEquals(List.of(1L, 2L), ids(storage.getByRange(Training.class,
+                InMemoryStorage.TRAINING_DATE_INDEX, null, CUTOFF.toEpochDay())));
+    }
+}
@@ -1,14 +1,32 @@
 package com.example.gym.storage;
 
+import com.example.gym.exception.DuplicateUsernameException;
+import com.example.gym.exception.EntityNotFoundException;
+import com.example.gym.exception.VersionConflictException;
 import com.example.gym.model.Trainee;
 import com.example.gym.model.Trainer;
+import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import com.example.gym.model.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.gym.storage.StorageFixtures.trainee;
+import static com.example.gym.storage.StorageFixtures.training;
 import static org.junit.jupiter.api.Assertions.*;
 
 class InMemoryStorageTest {
@@ -119,6 +137,23 @@ class InMemoryStorageTest {
         assertTrue(activeTrainees.get(0).isActive());
     }
 
+    @Test
+    @DisplayName("GetByCondition only visits entities of the requested class")
+    void getByConditionShouldOnlyVisitRequestedEntityClass() {
+        Trainee trainee = new Trainee();
+        trainee.setUserId(1L);
+        Trainer trainer = new Trainer();
+        trainer.setUserId(1L);
+
+        storage.put(Trainee.class, 1L, trainee);
+        storage.put(Trainer.class, 1L, trainer);
+
+        List<Trainer> result = storage.getByCondition(Trainer.class, t -> true);
+
+        assertEquals(1, result.size());
+        assertSame(trainer, result.get(0));
+    }
+
     @Test
     @DisplayName("GetByCondition returns empty list when no entities match")
     void getByConditionShouldReturnEmptyListWhenNoMatch() {
@@ -127,6 +162,160 @@ class InMemoryStorageTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    @DisplayName("GetByIndex returns trainings for a trainee")
+    void getByIndexShouldReturnTrainingsForTrainee() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-15"));
+        storage.put(Training.class, 2L, training(2L, 10L, 21L, "2024-01-15"));
+        storage.put(Training.class, 3L, training(3L, 11L, 20L, "2024-01-15"));
+
+        List<Training> result = storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 10L);
+
+        assertEquals(2, result.size());
+        assertTrue(result.stream().allMatch(t -> t.getTraineeId() == 10L));
+    }
+
+    @Test
+    @DisplayName("GetByIndex follows entities re-saved with a new key")
+    void getByIndexShouldFollowUpdatedKey() {
+        Training training = training(1L, 10L, 20L, "2024-01-15");
+        storage.put(Training.class, 1L, training);
+
+        training.setTrainerId(30L);
+        storage.put(Training.class, 1L, training);
+
+        assertTrue(storage.getByIndex(Training.class, InMemoryStorage.TRAINER_ID_INDEX, 20L).isEmpty());
+        assertEquals(1, storage.getByIndex(Training.class, InMemoryStorage.TRAINER_ID_INDEX, 30L).size());
+    }
+
+    @Test
+    @DisplayName("GetByIndex drops deleted entities")
+    void getByIndexShouldDropDeletedEntities() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-15"));
+
+        storage.delete(Training.class, 1L);
+
+        assertTrue(storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 10L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("GetByRange returns trainings within dates in date order")
+    void getByRangeShouldReturnTrainingsWithinDates() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-20"));
+        storage.put(Training.class, 2L, training(2L, 10L, 20L, "2024-01-10"));
+        storage.put(Training.class, 3L, training(3L, 10L, 20L, "2024-02-01"));
+
+        List<Training> result = storage.getByRange(Training.class, InMemoryStorage.TRAINING_DATE_INDEX,
+                LocalDate.parse("2024-01-01").toEpochDay(), LocalDate.parse("2024-01-31").toEpochDay());
+
+        assertEquals(List.of(2L, 1L), result.stream().map(Training::getTrainingId).toList());
+    }
+
+    @Test
+    @DisplayName("GetByRange on trainee date index only returns that trainee")
+    void getByRangeShouldFilterByTrainee() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-10"));
+        storage.put(Training.class, 2L, training(2L, 11L, 20L, "2024-01-10"));
+        long day = LocalDate.parse("2024-01-10").toEpochDay();
+
+        List<Training> result = storage.getByRange(Training.class, InMemoryStorage.TRAINEE_DATE_INDEX,
+                new OwnerDayKey(10L, day), new OwnerDayKey(10L, day));
+
+        assertEquals(1, result.size());
+        assertEquals(1L, result.get(0).getTrainingId());
+    }
+
+    @Test
+    @DisplayName("GetByRange returns nothing when the bounds are inverted")
+    void getByRangeShouldReturnEmptyForInvertedBounds() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-10"));
+        long day = LocalDate.parse("2024-01-10").toEpochDay();
+
+        assertTrue(storage.getByRange(Training.class, InMemoryStorage.TRAINING_DATE_INDEX, day + 1, day - 1).isEmpty());
+        assertTrue(storage.getByRange(Training.class, InMemoryStorage.TRAINEE_DATE_INDEX,
+                new OwnerDayKey(10L, day + 1), new OwnerDayKey(10L, day)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("GetByRange rejects hash indexes")
+    void getByRangeShouldRejectUnsortedIndex() {
+        assertThrows(IllegalArgumentException.class,
+                () -> storage.getByRange(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 1L, 2L));
+    }
+
+    @Test
+    @DisplayName("GetByIndex rejects unknown index")
+    void getByIndexShouldRejectUnknownIndex() {
+        assertThrows(IllegalArgumentException.class,
+                () -> storage.getByIndex(Trainee.class, InMemoryStorage.TRAINEE_ID_INDEX, 1L));
+    }
+
+    @Test
+    @DisplayName("Put shares the stored training type across trainings")
+    void putShouldShareStoredTrainingType() {
+        TrainingType cardio = TrainingType.builder().trainingTypeId(1L).trainingTypeName("Cardio").build();
+        storage.put(TrainingType.class, 1L, cardio);
+
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-15"));
+        storage.put(Training.class, 2L, training(2L, 11L, 20L, "2024-01-15"));
+
+        TrainingType shared = storage.get(Training.class, 1L).orElseThrow().getTrainingType();
+        assertEquals(cardio, shared);
+        assertSame(shared, storage.get(Training.class, 2L).orElseThrow().getTrainingType());
+    }
+
+    @Test
+    @DisplayName("Put shares training types that are not stored yet")
+    void putShouldShareDetachedTrainingType() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-15"));
+        storage.put(Training.class, 2L, training(2L, 11L, 20L, "2024-01-15"));
+
+        assertSame(storage.get(Training.class, 1L).orElseThrow().getTrainingType(),
+                storage.get(Training.class, 2L).orElseThrow().getTrainingType());
+    }
+
+    @Test
+    @DisplayName("Storing a training type moves earlier trainings over to it")
+    void putOfTrainingTypeShouldRepointEarlierTrainings() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-15"));
+        storage.put(TrainingType.class, 1L, new TrainingType(1L, "Yoga"));
+        storage.put(Training.class, 2L, training(2L, 11L, 20L, "2024-01-15"));
+
+        TrainingType first = storage.get(Training.class, 1L).orElseThrow().getTrainingType();
+        assertEquals("Yoga", first.getTrainingTypeName());
+        assertSame(first, storage.get(Training.class, 2L).orElseThrow().getTrainingType());
+
+        storage.put(TrainingType.class, 1L, new TrainingType(1L, "Pilates"));
+
+        assertEquals("Pilates", storage.get(Training.class, 1L).orElseThrow().getTrainingType().getTrainingTypeName());
+        assertEquals("Pilates", storage.get(Training.class, 2L).orElseThrow().getTrainingType().getTrainingTypeName());
+    }
+
+    @Test
+    @DisplayName("The training type shared across trainings cannot be renamed through one of them")
+    void sharedTrainingTypeShouldBeReadOnly() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-15"));
+        storage.put(Training.class, 2L, training(2L, 11L, 20L, "2024-01-15"));
+
+        TrainingType shared = storage.get(Training.class, 1L).orElseThrow().getTrainingType();
+
+        assertThrows(UnsupportedOperationException.class, () -> shared.setTrainingTypeName("Renamed"));
+        assertEquals("Cardio", storage.get(Training.class, 2L).orElseThrow().getTrainingType().getTrainingTypeName());
+    }
+
+    @Test
+    @DisplayName("Put leaves the caller's training and its type untouched")
+    void putShouldNotChangeCallersTraining() {
+        Training training = training(1L, 10L, 20L, "2024-01-15");
+        TrainingType own = training.getTrainingType();
+
+        storage.put(Training.class, 1L, training);
+        training.getTrainingType().setTrainingTypeName("Renamed");
+
+        assertSame(own, training.getTrainingType());
+        assertEquals("Cardio", storage.get(Training.class, 1L).orElseThrow().getTrainingType().getTrainingTypeName());
+    }
+
     @Test
     @DisplayName("Delete removes entity from storage")
     void deleteShouldRemoveEntity() {
@@ -191,6 +380,106 @@ class InMemoryStorageTest {
         assertTrue(result);
     }
 
+    @Test
+    @DisplayName("ExistsByUsername returns false after user is deleted")
+    void existsByUsernameShouldReturnFalseAfterDelete() {
+        Trainee trainee = new Trainee();
+        trainee.setUserId(1L);
+        trainee.setUsername("John.Doe");
+        storage.put(Trainee.class, 1L, trainee);
+
+        storage.delete(Trainee.class, 1L);
+
+        assertFalse(storage.existsByUsername("John.Doe"));
+    }
+
+    @Test
+    @DisplayName("FindByUsername returns the owning user")
+    void findByUsernameShouldReturnOwner() {
+        Trainer trainer = new Trainer();
+        trainer.setUserId(1L);
+        trainer.setUsername("Jane.Smith");
+        storage.put(Trainer.class, 1L, trainer);
+
+        Optional<User> result = storage.findByUsername("Jane.Smith");
+
+        assertTrue(result.isPresent());
+        assertSame(trainer, result.get());
+    }
+
+    @Test
+    @DisplayName("Put rejects a username owned by another user")
+    void putShouldRejectDuplicateUsername() {
+        Trainee trainee = new Trainee();
+        trainee.setUserId(1L);
+        trainee.setUsername("John.Doe");
+        Trainer trainer = new Trainer();
+        trainer.setUserId(1L);
+        trainer.setUsername("John.Doe");
+        storage.put(Trainee.class, 1L, trainee);
+
+        assertThrows(DuplicateUsernameException.class,
+                () -> storage.put(Trainer.class, 1L, trainer));
+        assertTrue(storage.get(Trainer.class, 1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Put allows re-saving the same user")
+    void putShouldAllowResavingSameUser() {
+        Trainee trainee = new Trainee();
+        trainee.setUserId(1L);
+        trainee.setUsername("John.Doe");
+        storage.put(Trainee.class, 1L, trainee);
+
+        storage.put(Trainee.class, 1L, trainee);
+
+        assertTrue(storage.existsByUsername("John.Doe"));
+    }
+
+    @Test
+    @DisplayName("Put of an equal instance under the same id keeps the username claimed")
+    void putShouldKeepUsernameWhenEqualInstanceReplacesOwner() {
+        storage.put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+
+        Trainee equal = trainee(1L, "John.Doe");
+        storage.put(Trainee.class, 1L, equal);
+
+        assertTrue(storage.existsByUsername("John.Doe"));
+        assertSame(equal, storage.findByUsername("John.Doe").orElseThrow());
+        assertFalse(storage.reserveUsername("John.Doe"));
+    }
+
+    @Test
+    @DisplayName("ReserveUsername succeeds only once per username")
+    void reserveUsernameShouldSucceedOnlyOnce() {
+        assertTrue(storage.reserveUsername("John.Doe"));
+        assertFalse(storage.reserveUsername("John.Doe"));
+        assertTrue(storage.existsByUsername("John.Doe"));
+    }
+
+    @Test
+    @DisplayName("Put claims a reserved username")
+    void putShouldClaimReservedUsername() {
+        Trainee trainee = new Trainee();
+        trainee.setUserId(1L);
+        trainee.setUsername("John.Doe");
+        storage.reserveUsername("John.Doe");
+
+        storage.put(Trainee.class, 1L, trainee);
+
+        assertSame(trainee, storage.findByUsername("John.Doe").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("CancelUsernameReservation frees the username")
+    void cancelUsernameReservationShouldFreeUsername() {
+        storage.reserveUsername("John.Doe");
+
+        storage.cancelUsernameReservation("John.Doe");
+
+        assertFalse(storage.existsByUsername("John.Doe"));
+    }
+
     @Test
     @DisplayName("InitializeIdCounter sets counter correctly")
     void initializeIdCounterShouldSetCounterCorrectly() {
@@ -227,4 +516,314 @@ class InMemoryStorageTest {
         assertEquals(0, storage.size());
         assertTrue(storage.get(Trainee.class, 1L).isEmpty());
     }
+
+    @Test
+    @DisplayName("ReserveIds hands out a consecutive block after existing ids")
+    void reserveIdsShouldReturnConsecutiveBlock() {
+        storage.initializeIdCounter(Trainee.class, 10L);
+
+        long first = storage.reserveIds(Trainee.class, 5);
+
+        assertEquals(11L, first);
+        assertEquals(16L, storage.generateId(Trainee.class));
+    }
+
+    @Test
+    @DisplayName("PutAll stores a batch and indexes it")
+    void putAllShouldStoreBatch() {
+        Map<Long, Training> batch = new LinkedHashMap<>();
+        batch.put(1L, training(1L, 7L, 1L, "2024-01-15"));
+        batch.put(2L, training(2L, 7L, 2L, "2024-01-15"));
+
+        storage.putAll(Training.class, batch);
+
+        assertEquals(2, storage.size(Training.class));
+        assertEquals(2, storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 7L).size());
+    }
+
+    @Test
+    @DisplayName("PutAll rejects the whole batch when a username is taken")
+    void putAllShouldRejectBatchWithTakenUsername() {
+        storage.put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        Map<Long, Trainee> batch = new LinkedHashMap<>();
+        batch.put(2L, trainee(2L, "Jane.Doe"));
+        batch.put(3L, trainee(3L, "John.Doe"));
+
+        assertThrows(DuplicateUsernameException.class, () -> storage.putAll(Trainee.class, batch));
+        assertTrue(storage.get(Trainee.class, 2L).isEmpty());
+        assertFalse(storage.existsByUsername("Jane.Doe"));
+    }
+
+    @Test
+    @DisplayName("PutAll puts back what it stored when the batch fails part way")
+    void putAllShouldUndoPartialBatch() {
+        storage.setTrainingBackend("offheap");
+        storage.put(Training.class, 1L, training(1L, 7L, 1L, "2024-01-15"));
+        Map<Long, Training> batch = new LinkedHashMap<>();
+        batch.put(1L, training(1L, 8L, 1L, "2024-01-15"));
+        batch.put(2L, training(2L, 8L, 1L, "2024-01-15"));
+        batch.put(-1L, training(-1L, 8L, 1L, "2024-01-15"));
+
+        assertThrows(IllegalArgumentException.class, () -> storage.putAll(Training.class, batch));
+
+        assertEquals(7L, storage.get(Training.class, 1L).orElseThrow().getTraineeId());
+        assertTrue(storage.get(Training.class, 2L).isEmpty());
+        assertTrue(storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 8L).isEmpty());
+        assertEquals(1, storage.trainingAggregates().forTrainee(7L).count());
+        assertEquals(0, storage.trainingAggregates().forTrainee(8L).count());
+    }
+
+    @Test
+    @DisplayName("PutAll keeps a reserved username reserved when the batch is rejected")
+    void putAllShouldKeepReservationsOnRejectedBatch() {
+        storage.put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        storage.reserveUsername("Jane.Doe");
+        Map<Long, Trainee> batch = new LinkedHashMap<>();
+        batch.put(2L, trainee(2L, "Jane.Doe"));
+        batch.put(3L, trainee(3L, "John.Doe"));
+
+        assertThrows(DuplicateUsernameException.class, () -> storage.putAll(Trainee.class, batch));
+
+        assertTrue(storage.existsByUsername("Jane.Doe"));
+        assertTrue(storage.findByUsername("Jane.Doe").isEmpty());
+        assertSame(storage.get(Trainee.class, 1L).orElseThrow(), storage.findByUsername("John.Doe").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("PutAll rejects a batch with a username repeated inside it")
+    void putAllShouldRejectDuplicateWithinBatch() {
+        Map<Long, Trainee> batch = new LinkedHashMap<>();
+        batch.put(1L, trainee(1L, "John.Doe"));
+        batch.put(2L, trainee(2L, "John.Doe"));
+
+        assertThrows(DuplicateUsernameException.class, () -> storage.putAll(Trainee.class, batch));
+        assertEquals(0, storage.size(Trainee.class));
+    }
+
+    @Test
+    @DisplayName("DeleteAll removes the batch and frees its usernames")
+    void deleteAllShouldRemoveBatch() {
+        storage.put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        storage.put(Trainee.class, 2L, trainee(2L, "Jane.Doe"));
+        storage.put(Trainee.class, 3L, trainee(3L, "Ann.Lee"));
+
+        storage.deleteAll(Trainee.class, List.of(1L, 2L, 99L));
+
+        assertEquals(1, storage.size(Trainee.class));
+        assertFalse(storage.existsByUsername("John.Doe"));
+        assertTrue(storage.existsByUsername("Ann.Lee"));
+    }
+
+    @Test
+    @DisplayName("Concurrent id allocation never hands out the same id twice")
+    void concurrentIdAllocationShouldBeUnique() throws Exception {
+        int threads = 8;
+        int perThread = 2_000;
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            boolean blocks = t % 2 == 0;
+            executor.submit(() -> {
+                for (int i = 0; i < perThread; i += blocks ? 4 : 1) {
+                    if (blocks) {
+                        long first = storage.reserveIds(Training.class, 4);
+                        for (long id = first; id < first + 4; id++) {
+                            ids.add(id);
+                        }
+                    } else {
+                        ids.add(storage.generateId(Training.class));
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, ids.size());
+        assertEquals(threads * perThread, storage.getIdCounter(Training.class));
+    }
+
+    @Test
+    @DisplayName("Concurrent saves of one id leave indexes and aggregates agreeing with the stored entity")
+    void concurrentPutsShouldKeepDerivedStructuresConsistent() throws Exception {
+        int writers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        for (int t = 0; t < writers; t++) {
+            long traineeId = t;
+            executor.submit(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    storage.put(Training.class, 1L, training(1L, traineeId, 1L, "2024-01-15"));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        long stored = storage.<Training>get(Training.class, 1L).orElseThrow().getTraineeId();
+        for (long traineeId = 0; traineeId < writers; traineeId++) {
+            int expected = traineeId == stored ? 1 : 0;
+            assertEquals(expected, storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, traineeId).size());
+            assertEquals(expected, storage.trainingAggregates().forTrainee(traineeId).count());
+        }
+    }
+
+    @Test
+    @DisplayName("InitializeIdCounter never moves the counter backwards")
+    void initializeIdCounterShouldNotLowerCounter() {
+        storage.initializeIdCounter(Trainee.class, 10L);
+        storage.initializeIdCounter(Trainee.class, 4L);
+
+        assertEquals(10L, storage.getIdCounter(Trainee.class));
+        assertEquals(11L, storage.generateId(Trainee.class));
+    }
+
+    @Test
+    @DisplayName("Put stores new users at version 0")
+    void putShouldStartUsersAtVersionZero() {
+        storage.put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+
+        assertEquals(0L, storage.get(Trainee.class, 1L).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Replace swaps in the new instance at the next version")
+    void replaceShouldSwapAndBumpVersion() {
+        Trainee original = trainee(1L, "John.Doe");
+        storage.put(Trainee.class, 1L, original);
+        Trainee changed = original.copy();
+        changed.setAddress("New street");
+
+        storage.replace(Trainee.class, 1L, 0L, changed);
+
+        Trainee stored = storage.get(Trainee.class, 1L).orElseThrow();
+        assertSame(changed, stored);
+        assertEquals(1L, stored.getVersion());
+        assertNull(original.getAddress());
+        assertEquals(0L, original.getVersion());
+        assertSame(changed, storage.findByUsername("John.Doe").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Replace rejects a stale version and keeps the stored instance")
+    void replaceShouldRejectStaleVersion() {
+        Trainee original = trainee(1L, "John.Doe");
+        storage.put(Trainee.class, 1L, original);
+        storage.replace(Trainee.class, 1L, 0L, original.copy());
+
+        assertThrows(VersionConflictException.class,
+                () -> storage.replace(Trainee.class, 1L, 0L, original.copy()));
+        assertEquals(1L, storage.get(Trainee.class, 1L).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Replace of a missing user throws EntityNotFoundException")
+    void replaceShouldRejectMissingUser() {
+        assertThrows(EntityNotFoundException.class,
+                () -> storage.replace(Trainee.class, 1L, 0L, trainee(1L, "John.Doe")));
+        assertTrue(storage.get(Trainee.class, 1L).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Replace with a new username frees the old one")
+    void replaceShouldMoveUsername() {
+        Trainee original = trainee(1L, "John.Doe");
+        storage.put(Trainee.class, 1L, original);
+        Trainee renamed = original.copy();
+        renamed.setUsername("John.Smith");
+
+        storage.replace(Trainee.class, 1L, 0L, renamed);
+
+        assertFalse(storage.existsByUsername("John.Doe"));
+        assertSame(renamed, storage.findByUsername("John.Smith").orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Only one of several concurrent writers at the same version wins")
+    void concurrentReplaceShouldLetOneWriterWin() throws Exception {
+        Trainee original = trainee(1L, "John.Doe");
+        storage.put(Trainee.class, 1L, original);
+        int writers = 8;
+        AtomicInteger wins = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+        for (int i = 0; i < writers; i++) {
+            executor.submit(() -> {
+                try {
+                    storage.replace(Trainee.class, 1L, 0L, original.copy());
+                    wins.incrementAndGet();
+                } catch (VersionConflictException e) {
+                    conflicts.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, wins.get());
+        assertEquals(writers - 1, conflicts.get());
+        assertEquals(1L, storage.get(Trainee.class, 1L).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Copy-on-write mode keeps stored entities private to storage")
+    void copyOnWriteShouldIsolateStoredEntities() {
+        ReflectionTestUtils.setField(storage, "copyOnWrite", true);
+        Trainee trainee = trainee(1L, "John.Doe");
+        storage.put(Trainee.class, 1L, trainee);
+
+        trainee.setAddress("Changed by writer");
+        storage.get(Trainee.class, 1L).orElseThrow().setAddress("Changed by reader");
+
+        Trainee first = storage.get(Trainee.class, 1L).orElseThrow();
+        Trainee second = storage.get(Trainee.class, 1L).orElseThrow();
+        assertNull(first.getAddress());
+        assertNotSame(first, second);
+        assertEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("Copy-on-write mode hands out copies from index lookups and username lookups")
+    void copyOnWriteShouldCopyLookupResults() {
+        ReflectionTestUtils.setField(storage, "copyOnWrite", true);
+        storage.put(Training.class, 1L, training(1L, 7L, 1L, "2024-01-15"));
+        storage.put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+
+        Training found = storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 7L).get(0);
+        found.getTrainingType().setTrainingTypeName("Changed");
+        found.setTraineeId(8L);
+        ((Trainee) storage.findByUsername("John.Doe").orElseThrow()).setAddress("Changed");
+
+        Training stored = storage.getByCondition(Training.class, t -> true).get(0);
+        assertEquals(7L, stored.getTraineeId());
+        assertEquals("Cardio", stored.getTrainingType().getTrainingTypeName());
+        assertNull(storage.get(Trainee.class, 1L).orElseThrow().getAddress());
+    }
+
+    @Test
+    @DisplayName("Copy-on-write mode still applies versioned replaces")
+    void copyOnWriteShouldSupportReplace() {
+        ReflectionTestUtils.setField(storage, "copyOnWrite", true);
+        storage.put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        Trainee changed = storage.get(Trainee.class, 1L).orElseThrow();
+        changed.setAddress("New street");
+
+        storage.replace(Trainee.class, 1L, 0L, changed);
+
+        assertEquals(1L, changed.getVersion());
+        assertEquals("New street", storage.get(Trainee.class, 1L).orElseThrow().getAddress());
+        assertTrue(storage.existsByUsername("John.Doe"));
+    }
+
+    @Test
+    @DisplayName("Copy-on-write mode keeps the username claimed across re-saves")
+    void copyOnWriteShouldKeepUsernameAcrossResaves() {
+        ReflectionTestUtils.setField(storage, "copyOnWrite", true);
+        Trainee trainee = trainee(1L, "John.Doe");
+        storage.put(Trainee.class, 1L, trainee);
+
+        storage.put(Trainee.class, 1L, trainee);
+
+        assertTrue(storage.existsByUsername("John.Doe"));
+        assertTrue(storage.findByUsername("John.Doe").isPresent());
+    }
 }
@@ -0,0 +1,149 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import com.example.gym.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static com.example.gym.storage.StorageFixtures.training;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapTrainingStoreTest {
+
+    private OffHeapTrainingStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new OffHeapTrainingStore();
+    }
+
+    @Test
+    @DisplayName("Stored trainings are read back field by field as new objects")
+    void getShouldMaterializeStoredRow() {
+        Training original = training(3L, 1L, 7L, "2024-01-15");
+        store.put(3L, original);
+
+        Training read = store.get(3L);
+
+        assertEquals(original, read);
+        assertNotSame(original, read);
+        assertSame(original.getTrainingType(), read.getTrainingType());
+        assertNull(store.get(2L));
+        assertNull(store.get(100_000L));
+    }
+
+    @Test
+    @DisplayName("Null ids, names, types and dates survive the round trip")
+    void getShouldKeepNullFields() {
+        Training empty = Training.builder().trainingId(1L).build();
+        store.put(1L, empty);
+
+        assertEquals(empty, store.get(1L));
+    }
+
+    @Test
+    @DisplayName("Put, compute and remove return the previous training and keep the size")
+    void writesShouldReturnPreviousAndTrackSize() {
+        assertNull(store.put(1L, training(1L, 1L, 7L, "2024-01-15")));
+        Training previous = store.put(1L, training(1L, 2L, 7L, "2024-01-16"));
+        assertEquals(1L, previous.getTraineeId());
+        assertEquals(1, store.size());
+
+        Training computed = store.compute(1L, current -> {
+            Training next = current.copy();
+            next.setTrainingDuration(90);
+            return next;
+        });
+        assertEquals(60, computed.getTrainingDuration());
+        assertEquals(90, store.get(1L).getTrainingDuration());
+
+        assertEquals(2L, store.remove(1L).getTraineeId());
+        assertNull(store.remove(1L));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    @DisplayName("Types are kept once per id, read back as the latest instance stored for it")
+    void typesShouldBeKeptPerId() {
+        store.put(1L, training(1L, 1L, 7L, "2024-01-15"));
+        TrainingType renamed = TrainingType.builder().trainingTypeId(1L).trainingTypeName("Endurance").build();
+        Training second = training(2L, 1L, 7L, "2024-01-15");
+        second.setTrainingType(renamed);
+        store.put(2L, second);
+        Training unsaved = training(3L, 1L, 7L, "2024-01-15");
+        unsaved.setTrainingType(TrainingType.builder().trainingTypeName("Pilates").build());
+        store.put(3L, unsaved);
+
+        assertSame(renamed, store.get(1L).getTrainingType());
+        assertSame(renamed, store.get(2L).getTrainingType());
+        assertEquals(unsaved, store.get(3L));
+    }
+
+    @Test
+    @DisplayName("Rows spread over several chunks are all iterated in id order")
+    void valuesShouldSpanChunks() {
+        store.put(70_000L, training(70_000L, 2L, 7L, "2024-01-15"));
+        store.put(5L, training(5L, 1L, 7L, "2024-01-15"));
+
+        List<Long> ids = store.values().stream().map(Training::getTrainingId).toList();
+
+        assertEquals(List.of(5L, 70_000L), ids);
+        assertEquals(2, store.values().size());
+    }
+
+    @Test
+    @DisplayName("Storage keeps indexes and queries working with the off-heap backend")
+    void storageShouldQueryOffHeapTrainings() {
+        InMemoryStorage storage = new InMemoryStorage();
+        storage.setTrainingBackend("offheap");
+        storage.put(Training.class, 1L, training(1L, 1L, 7L, "2024-01-15"));
+        storage.put(Training.class, 2L, training(2L, 2L, 7L, "2024-02-15"));
+
+        List<Training> january = storage.query(Training.class, Query.between("trainingDate",
+                LocalDate.parse("2024-01-01"), LocalDate.parse("2024-01-31")));
+
+        assertEquals(List.of(1L), january.stream().map(Training::getTrainingId).toList());
+        assertEquals(2L, storage.<Training>get(Training.class, 2L).orElseThrow().getTraineeId());
+    }
+
+    @Test
+    @DisplayName("Without per-id tracking, rewritten and deleted trainings leave indexes, totals and schedule right")
+    void storageShouldUndoReplacedTrainings() {
+        InMemoryStorage storage = new InMemoryStorage();
+        storage.setTrainingBackend("offheap");
+        Training booked = training(1L, 1L, 7L, "2024-01-15");
+        booked.setTrainingTime("09:00");
+        storage.put(Training.class, 1L, booked);
+        Training moved = training(1L, 2L, 7L, "2024-02-15");
+        moved.setTrainingTime("09:00");
+        storage.put(Training.class, 1L, moved);
+
+        assertEquals(List.of(), storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 1L));
+        assertEquals(1, storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 2L).size());
+        assertEquals(0, storage.trainingAggregates().forTrainee(1L).count());
+        assertEquals(1, storage.trainingAggregates().forTrainee(2L).count());
+        assertTrue(storage.trainingSchedule().isTrainerFree(7L, LocalDate.parse("2024-01-15").atTime(9, 0), 60));
+        assertFalse(storage.trainingSchedule().isTrainerFree(7L, LocalDate.parse("2024-02-15").atTime(9, 0), 60));
+
+        storage.delete(Training.class, 1L);
+
+        assertEquals(List.of(), storage.getByIndex(Training.class, InMemoryStorage.TRAINEE_ID_INDEX, 2L));
+        assertEquals(0, storage.trainingAggregates().forTrainee(2L).count());
+        assertTrue(storage.trainingSchedule().isTrainerFree(7L, LocalDate.parse("2024-02-15").atTime(9, 0), 60));
+    }
+
+    @Test
+    @DisplayName("Unknown backends are rejected and the backend cannot change once trainings exist")
+    void storageShouldValidateBackend() {
+        InMemoryStorage storage = new InMemoryStorage();
+        assertThrows(IllegalArgumentException.class, () -> storage.setTrainingBackend("disk"));
+
+        storage.put(Training.class, 1L, training(1L, 1L, 7L, "2024-01-15"));
+        assertThrows(IllegalStateException.class, () -> storage.setTrainingBackend("offheap"));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Training;
+import com.example.gym.query.Page;
+import com.example.gym.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagingTest {
+
+    private InMemoryStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage();
+        for (long id = 1; id <= 10; id++) {
+            Trainee trainee = new Trainee();
+            trainee.setUserId(id);
+            trainee.setUsername("user" + id);
+            trainee.setActive(id % 2 == 0);
+            storage.put(Trainee.class, id, trainee);
+        }
+    }
+
+    private List<Long> ids(Page<Trainee> page) {
+        return page.items().stream().map(Trainee::getUserId).toList();
+    }
+
+    @Test
+    @DisplayName("Pages walk all entities in id order and end with a null cursor")
+    void pagesShouldCoverAllEntitiesInOrder() {
+        List<Long> seen = new ArrayList<>();
+        Long cursor = null;
+        int pages = 0;
+        do {
+            Page<Trainee> page = storage.page(Trainee.class, null, cursor, 4);
+            seen.addAll(ids(page));
+            cursor = page.nextAfterId();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), seen);
+        assertEquals(3, pages);
+    }
+
+    @Test
+    @DisplayName("Pages skip deleted ids and stay stable when earlier entities are deleted")
+    void pagesShouldBeStableUnderDeletes() {
+        Page<Trainee> first = storage.page(Trainee.class, null, null, 3);
+        storage.delete(Trainee.class, 2L);
+        storage.delete(Trainee.class, 5L);
+
+        Page<Trainee> second = storage.page(Trainee.class, null, first.nextAfterId(), 3);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(first));
+        assertEquals(List.of(4L, 6L, 7L), ids(second));
+    }
+
+    @Test
+    @DisplayName("Pages walk stored ids, not the id space, so large gaps are free")
+    void pagesShouldSkipGapsInIds() {
+        Trainee far = new Trainee();
+        far.setUserId(5_000_000_000L);
+        far.setUsername("far");
+        storage.put(Trainee.class, far.getUserId(), far);
+
+        Page<Trainee> page = storage.page(Trainee.class, null, 9L, 5);
+
+        assertEquals(List.of(10L, 5_000_000_000L), ids(page));
+        assertNull(page.nextAfterId());
+    }
+
+    @Test
+    @DisplayName("Pages over off-heap trainings skip empty chunks")
+    void offHeapPagesShouldSkipEmptyChunks() {
+        InMemoryStorage offHeap = new InMemoryStorage();
+        offHeap.setTrainingBackend("offheap");
+        for (long id : List.of(3L, 7L, 1_000_000L, 1_000_001L)) {
+            offHeap.put(Training.class, id, Training.builder().trainingId(id).build());
+        }
+
+        Page<Training> first = offHeap.page(Training.class, null, null, 3);
+        Page<Training> second = offHeap.page(Training.class, null, first.nextAfterId(), 3);
+
+        assertEquals(List.of(3L, 7L, 1_000_000L), first.items().stream().map(Training::getTrainingId).toList());
+        assertEquals(List.of(1_000_001L), second.items().stream().map(Training::getTrainingId).toList());
+        assertNull(second.nextAfterId());
+    }
+
+    @Test
+    @DisplayName("Filtered pages use the query, indexed or not")
+    void filteredPagesShouldApplyQuery() {
+        Page<Trainee> active = storage.page(Trainee.class, Query.eq("active", true), 4L, 2);
+        Page<Trainee> named = storage.page(Trainee.class, Query.in("username", "user3", "user9"), null, 5);
+
+        assertEquals(List.of(6L, 8L), ids(active));
+        assertTrue(active.hasNext());
+        assertEquals(List.of(3L, 9L), ids(named));
+        assertFalse(named.hasNext());
+    }
+
+    @Test
+    @DisplayName("Indexed, unioned and wide range queries page through matches in id order")
+    void indexedPagesShouldWalkMatchesInOrder() {
+        for (long id = 1; id <= 6_000; id++) {
+            storage.put(Training.class, id, Training.builder()
+                    .trainingId(id)
+                    .traineeId(id % 3)
+                    .trainerId(id % 5)
+                    .trainingEpochDay((int) (id % 7))
+                    .build());
+        }
+        Query byTrainee = Query.eq("traineeId", 0L);
+        Query either = Query.or(Query.eq("traineeId", 1L), Query.in("trainerId", 2L, 4L));
+        Query wideRange = Query.and(Query.between("trainingDate", 0L, 5L), Query.eq("trainingName", null));
+
+        assertEquals(allIds(training -> training.getTraineeId() == 0), pageAll(byTrainee));
+        assertEquals(allIds(training -> training.getTraineeId() == 1 || training.getTrainerId() % 2 == 0
+                && training.getTrainerId() != 0), pageAll(either));
+        assertEquals(allIds(training -> training.getTrainingEpochDay() <= 5), pageAll(wideRange));
+    }
+
+    private List<Long> allIds(Predicate<Training> filter) {
+        return storage.getByCondition(Training.class, filter).stream().map(Training::getTrainingId).sorted().toList();
+    }
+
+    private List<Long> pageAll(Query query) {
+        List<Long> seen = new ArrayList<>();
+        Long cursor = null;
+        do {
+            Page<Training> page = storage.page(Training.class, query, cursor, 250);
+            page.items().forEach(training -> seen.add(training.getTrainingId()));
+            cursor = page.nextAfterId();
+        } while (cursor != null);
+        return seen;
+    }
+
+    @Test
+    @DisplayName("Explicit ids advance the id counter so generated ids never collide")
+    void putShouldAdvanceIdCounter() {
+        assertEquals(11L, storage.generateId(Trainee.class));
+    }
+
+    @Test
+    @DisplayName("Streams honour the query and the condition")
+    void streamShouldApplyFilters() {
+        try (Stream<Trainee> stream = storage.stream(Trainee.class, Query.eq("active", false))) {
+            assertEquals(List.of(1L, 3L), stream.map(Trainee::getUserId).sorted().limit(2).toList());
+        }
+        assertEquals(1, storage.stream(Trainee.class, (Trainee t) -> t.getUserId() > 9).count());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Training;
+import com.example.gym.query.Query;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.gym.storage.StorageFixtures.trainee;
+import static com.example.gym.storage.StorageFixtures.training;
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryPlannerTest {
+
+    private InMemoryStorage storage;
+    private final AtomicInteger scans = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage();
+        storage.setScanListener((entityClass, visited, matched, elapsedNanos) -> scans.incrementAndGet());
+        storage.put(Training.class, 1L, training(1L, 1L, 1L, "2024-01-10", 30));
+        storage.put(Training.class, 2L, training(2L, 1L, 1L, "2024-01-20", 60));
+        storage.put(Training.class, 3L, training(3L, 2L, 1L, "2024-02-05", 45));
+        Training untyped = training(4L, 3L, 1L, "2024-03-01", 60);
+        untyped.setTrainingType(null);
+        storage.put(Training.class, 4L, untyped);
+        storage.put(Trainee.class, 1L, trainee(1L, true));
+        storage.put(Trainee.class, 2L, trainee(2L, false));
+        storage.put(Trainee.class, 3L, trainee(3L, true));
+    }
+
+    private List<Long> trainingIds(Query query) {
+        return storage.query(Training.class, query).stream()
+                .map(Training::getTrainingId)
+                .sorted()
+                .toList();
+    }
+
+    @Test
+    @DisplayName("Equality on an indexed field is answered from the index")
+    void eqOnIndexedFieldShouldUseIndex() {
+        assertEquals(List.of(1L, 2L), trainingIds(Query.eq("traineeId", 1L)));
+        assertEquals(0, scans.get());
+    }
+
+    @Test
+    @DisplayName("Int values are matched against long fields")
+    void intValuesShouldMatchLongFields() {
+        assertEquals(List.of(1L, 2L), trainingIds(Query.eq("traineeId", 1)));
+    }
+
+    @Test
+    @DisplayName("Active users are found through the active index")
+    void activeShouldUseIndex() {
+        List<Trainee> active = storage.query(Trainee.class, Query.eq("active", true));
+
+        assertEquals(2, active.size());
+        assertEquals(0, scans.get());
+    }
+
+    @Test
+    @DisplayName("Date ranges use the sorted date index and accept LocalDate bounds")
+    void dateRangeShouldUseSortedIndex() {
+        Query january = Query.between("trainingDate", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+
+        assertEquals(List.of(1L, 2L), trainingIds(january));
+        assertEquals(List.of(3L, 4L), trainingIds(Query.atLeast("trainingDate", LocalDate.of(2024, 2, 1))));
+        assertEquals(0, scans.get());
+    }
+
+    @Test
+    @DisplayName("An inverted date range matches nothing")
+    void invertedDateRangeShouldMatchNothing() {
+        Query inverted = Query.between("trainingDate", LocalDate.of(2024, 1, 31), LocalDate.of(2024, 1, 1));
+
+        assertEquals(List.of(), trainingIds(inverted));
+    }
+
+    @Test
+    @DisplayName("A conjunction filters index candidates by its unindexed parts")
+    void andShouldFilterIndexCandidates() {
+        Query query = Query.and(Query.eq("traineeId", 1L), Query.eq("trainingDuration", 60));
+
+        assertEquals(List.of(2L), trainingIds(query));
+        assertEquals(0, scans.get());
+    }
+
+    @Test
+    @DisplayName("A disjunction of indexed parts is answered from the indexes")
+    void orOfIndexedPartsShouldUseIndexes() {
+        Query query = Query.or(Query.eq("traineeId", 2L), Query.in("traineeId", 3L, 99L));
+
+        assertEquals(List.of(3L, 4L), trainingIds(query));
+        assertEquals(0, scans.get());
+    }
+
+    @Test
+    @DisplayName("Queries without a usable index fall back to a scan")
+    void unindexedQueryShouldScan() {
+        Query query = Query.or(Query.eq("traineeId", 2L), Query.atLeast("trainingDuration", 60));
+
+        assertEquals(List.of(2L, 3L, 4L), trainingIds(query));
+        assertEquals(1, scans.get());
+    }
+
+    @Test
+    @DisplayName("Unknown fields are rejected")
+    void unknownFieldShouldBeRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> storage.query(Training.class, Query.eq("coach", 1L)));
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Trainer;
+import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    private InMemoryStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage();
+
+        TrainingType cardio = TrainingType.builder().trainingTypeId(1L).trainingTypeName("Cardio").build();
+        storage.put(TrainingType.class, 1L, cardio);
+
+        Trainee trainee = new Trainee();
+        trainee.setUserId(1L);
+        trainee.setFirstName("Jane");
+        trainee.setLastName("Doe");
+        trainee.setUsername("Jane.Doe");
+        trainee.setPassword("xyz789abc1");
+        trainee.setActive(true);
+        trainee.setDateOfBirth("1995-05-15");
+        trainee.setAddress("123 Main St");
+        storage.put(Trainee.class, 1L, trainee);
+
+        Trainer trainer = new Trainer();
+        trainer.setUserId(1L);
+        trainer.setTrainerId(1L);
+        trainer.setUsername("John.Smith");
+        trainer.setSpecialization("Cardio");
+        storage.put(Trainer.class, 1L, trainer);
+
+        storage.put(Training.class, 1L, Training.builder()
+                .trainingId(1L)
+                .traineeId(1L)
+                .trainerId(1L)
+                .trainingName("Morning Cardio")
+                .trainingType(cardio)
+                .trainingDate("2024-01-15")
+                .trainingTime("08:30")
+                .trainingDuration(60)
+                .build());
+        storage.initializeIdCounter(Training.class, 7L);
+    }
+
+    @Test
+    @DisplayName("Snapshot round-trips all entities and id counters")
+    void writeAndReadShouldRestoreStorage() throws IOException {
+        Path snapshot = SnapshotFile.write(storage, directory);
+        InMemoryStorage restored = new InMemoryStorage();
+
+        SnapshotFile.Restored result = SnapshotFile.read(snapshot, restored);
+
+        assertEquals(4, result.entityCount());
+        assertEquals(storage.get(Trainee.class, 1L), restored.get(Trainee.class, 1L));
+        assertEquals(storage.get(Trainer.class, 1L), restored.get(Trainer.class, 1L));
+        assertEquals(storage.get(Training.class, 1L), restored.get(Training.class, 1L));
+        assertTrue(restored.existsByUsername("Jane.Doe"));
+        assertEquals(8L, restored.generateId(Training.class));
+    }
+
+    @Test
+    @DisplayName("Snapshot keeps the version of every user")
+    void writeAndReadShouldRestoreUserVersions() throws IOException {
+        Trainee trainee = storage.get(Trainee.class, 1L).orElseThrow();
+        storage.replace(Trainee.class, 1L, 0L, trainee);
+        storage.replace(Trainee.class, 1L, 1L, trainee);
+        Path snapshot = SnapshotFile.write(storage, directory);
+        InMemoryStorage restored = new InMemoryStorage();
+
+        SnapshotFile.read(snapshot, restored);
+
+        assertEquals(2L, restored.get(Trainee.class, 1L).orElseThrow().getVersion());
+        assertEquals(0L, restored.get(Trainer.class, 1L).orElseThrow().getVersion());
+    }
+
+    @Test
+    @DisplayName("Snapshot records the write-ahead log position")
+    void writeShouldRecordWalLsn() throws IOException {
+        Path snapshot = SnapshotFile.write(storage, directory, 42L);
+
+        assertEquals(42L, SnapshotFile.read(snapshot, new InMemoryStorage()).walLsn());
+    }
+
+    @Test
+    @DisplayName("Snapshots written with another codec version are rejected")
+    void readShouldRejectOtherCodecVersions() throws IOException {
+        Path snapshot = SnapshotFile.write(storage, directory);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        ByteBuffer.wrap(bytes).putInt(Integer.BYTES * 2, EntityCodec.VERSION + 1);
+        Files.write(snapshot, bytes);
+
+        assertThrows(IOException.class, () -> SnapshotFile.read(snapshot, new InMemoryStorage()));
+    }
+
+    @Test
+    @DisplayName("Restored trainings share the restored training type")
+    void readShouldCanonicalizeTrainingTypes() throws IOException {
+        Path snapshot = SnapshotFile.write(storage, directory);
+        InMemoryStorage restored = new InMemoryStorage();
+
+        SnapshotFile.read(snapshot, restored);
+
+        TrainingType shared = restored.get(Training.class, 1L).orElseThrow().getTrainingType();
+        assertEquals(restored.get(TrainingType.class, 1L).orElseThrow(), shared);
+        assertThrows(UnsupportedOperationException.class, () -> shared.setTrainingTypeName("Renamed"));
+    }
+
+    @Test
+    @DisplayName("Latest returns the newest snapshot and prune keeps the newest ones")
+    void latestAndPruneShouldUseCreationOrder() throws IOException {
+        Files.createFile(directory.resolve("snapshot-100.bin"));
+        Files.createFile(directory.resolve("snapshot-99.bin"));
+        Files.createFile(directory.resolve("snapshot-1000.bin"));
+
+        assertEquals(Optional.of(directory.resolve("snapshot-1000.bin")), SnapshotFile.latest(directory));
+
+        SnapshotFile.prune(directory, 2);
+
+        assertFalse(Files.exists(directory.resolve("snapshot-99.bin")));
+        assertTrue(Files.exists(directory.resolve("snapshot-100.bin")));
+    }
+
+    @Test
+    @DisplayName("Latest is empty when directory does not exist")
+    void latestShouldBeEmptyForMissingDirectory() throws IOException {
+        assertTrue(SnapshotFile.latest(directory.resolve("missing")).isEmpty());
+    }
+}
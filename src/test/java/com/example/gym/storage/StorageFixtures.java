@@ -0,0 +1,55 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+
+/**
+ * Entities shared by the storage tests. Every call builds new instances, so
+ * tests may change what they get. Trainings are named after their id and carry
+ * a fresh {@link #cardio()} type.
+ */
+public final class StorageFixtures {
+
+    private StorageFixtures() {
+    }
+
+    public static Trainee trainee(long id, String username) {
+        Trainee trainee = new Trainee();
+        trainee.setUserId(id);
+        trainee.setUsername(username);
+        return trainee;
+    }
+
+    public static Trainee trainee(long id, boolean active) {
+        Trainee trainee = trainee(id, "user" + id);
+        trainee.setActive(active);
+        return trainee;
+    }
+
+    public static TrainingType cardio() {
+        return TrainingType.builder().trainingTypeId(1L).trainingTypeName("Cardio").build();
+    }
+
+    public static Training training(long id, long traineeId, long trainerId, String date) {
+        return training(id, traineeId, trainerId, date, 60);
+    }
+
+    public static Training training(long id, long traineeId, long trainerId, String date, int duration) {
+        return training(id, traineeId, trainerId, date, null, duration);
+    }
+
+    public static Training training(long id, long traineeId, long trainerId, String date, String time,
+                                    int duration) {
+        return Training.builder()
+                .trainingId(id)
+                .traineeId(traineeId)
+                .trainerId(trainerId)
+                .trainingName("Session " + id)
+                .trainingType(cardio())
+                .trainingDate(date)
+                .trainingTime(time)
+                .trainingDuration(duration)
+                .build();
+    }
+}
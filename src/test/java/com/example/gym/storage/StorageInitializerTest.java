@@ -0,0 +1,102 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Training;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StorageInitializerTest {
+
+    @TempDir
+    Path directory;
+
+    private StorageInitializer initializer;
+    private InMemoryStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        initializer = new StorageInitializer();
+        ReflectionTestUtils.setField(initializer, "batchSize", 2);
+        ReflectionTestUtils.setField(initializer, "parallelism", 4);
+        storage = new InMemoryStorage();
+    }
+
+    @Test
+    @DisplayName("Should load classpath init file")
+    void shouldLoadClasspathFile() {
+        ReflectionTestUtils.setField(initializer, "initFilePath", "classpath:initial-data.json");
+
+        initializer.postProcessAfterInitialization(storage, "inMemoryStorage");
+
+        assertEquals(6, storage.size());
+        assertEquals("2024-01-15", storage.get(Training.class, 1L).orElseThrow().getTrainingDate());
+        assertTrue(storage.existsByUsername("Jane.Doe"));
+    }
+
+    @Test
+    @DisplayName("Should stream a gzip file from the filesystem in batches")
+    void shouldLoadGzipFileFromFilesystem() throws IOException {
+        Path file = directory.resolve("seed.json.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file));
+             Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8)) {
+            writer.write("{");
+            for (int i = 1; i <= 25; i++) {
+                writer.write((i > 1 ? "," : "") + "\"trainee:" + i + "\": {\"userId\": " + i
+                        + ", \"username\": \"User." + i + "\", \"dateOfBirth\": \"1990-01-01\"}");
+            }
+            writer.write("}");
+        }
+        ReflectionTestUtils.setField(initializer, "initFilePath", file.toString());
+
+        initializer.postProcessAfterInitialization(storage, "inMemoryStorage");
+
+        assertEquals(25, storage.size());
+        assertEquals("User.25", storage.get(Trainee.class, 25L).orElseThrow().getUsername());
+        assertEquals(26L, storage.generateId(Trainee.class));
+    }
+
+    @Test
+    @DisplayName("Should skip unknown and malformed entries")
+    void shouldSkipBadEntries() throws IOException {
+        Path file = directory.resolve("seed.json");
+        Files.writeString(file, """
+                {
+                  "unknown:1": {"a": 1},
+                  "trainee:1": {"userId": 1, "dateOfBirth": "not-a-date"},
+                  "trainee:2": {"userId": 2}
+                }
+                """);
+        ReflectionTestUtils.setField(initializer, "initFilePath", "file:" + file);
+
+        initializer.postProcessAfterInitialization(storage, "inMemoryStorage");
+
+        assertEquals(1, storage.size());
+        assertTrue(storage.get(Trainee.class, 2L).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should fail instead of falling back to the init file when the snapshot is unreadable")
+    void shouldFailOnUnreadableSnapshot() throws IOException {
+        Files.writeString(directory.resolve("snapshot-1.bin"), "not a snapshot");
+        ReflectionTestUtils.setField(initializer, "snapshotDir", directory.toString());
+        ReflectionTestUtils.setField(initializer, "initFilePath", "classpath:initial-data.json");
+
+        assertThrows(IllegalStateException.class,
+                () -> initializer.postProcessAfterInitialization(storage, "inMemoryStorage"));
+        assertEquals(0, storage.size());
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainer;
+import com.example.gym.model.Training;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainerMatchingTest {
+
+    private InMemoryStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage();
+        storage.put(Trainer.class, 1L, trainer(1L, "Cardio", true));
+        storage.put(Trainer.class, 2L, trainer(2L, "Strength / Cardio training", true));
+        storage.put(Trainer.class, 3L, trainer(3L, "cardio", true));
+        storage.put(Trainer.class, 4L, trainer(4L, "Cardio", false));
+        storage.put(Trainer.class, 5L, trainer(5L, "Yoga", true));
+        storage.put(Training.class, 1L, Training.builder()
+                .trainingId(1L)
+                .trainerId(1L)
+                .trainingDate("2024-01-15")
+                .trainingTime("10:00")
+                .trainingDuration(60)
+                .build());
+    }
+
+    private Trainer trainer(long id, String specialization, boolean active) {
+        Trainer trainer = new Trainer();
+        trainer.setUserId(id);
+        trainer.setUsername("Trainer." + id);
+        trainer.setSpecialization(specialization);
+        trainer.setActive(active);
+        return trainer;
+    }
+
+    private List<Long> match(String text, int limit) {
+        return storage.matchTrainers(text, trainerId -> true, limit).stream().map(Trainer::getUserId).toList();
+    }
+
+    @Test
+    @DisplayName("Active trainers rank by shared words, then by fewest trainings booked")
+    void matchShouldRankActiveTrainers() {
+        assertEquals(List.of(2L, 3L, 1L), match("Cardio Training", 10));
+        assertEquals(List.of(2L, 3L), match("CARDIO", 2));
+        assertEquals(List.of(), match("Pilates", 10));
+    }
+
+    @Test
+    @DisplayName("Updates, deactivation and deletes keep the index current")
+    void writesShouldUpdateIndex() {
+        Trainer yoga = storage.<Trainer>get(Trainer.class, 3L).orElseThrow();
+        yoga.setSpecialization("Yoga");
+        storage.put(Trainer.class, 3L, yoga);
+        Trainer reactivated = trainer(4L, "Cardio", true);
+        storage.replace(Trainer.class, 4L, 0L, reactivated);
+        storage.delete(Trainer.class, 2L);
+
+        assertEquals(List.of(4L, 1L), match("cardio", 10));
+        assertEquals(List.of(3L, 5L), match("yoga", 10));
+    }
+
+    @Test
+    @DisplayName("Trainers changed in place but not stored again are checked on their current state")
+    void matchShouldRecheckLoadedTrainers() {
+        storage.<Trainer>get(Trainer.class, 2L).orElseThrow().setActive(false);
+        storage.<Trainer>get(Trainer.class, 3L).orElseThrow().setSpecialization("Yoga");
+
+        assertEquals(List.of(1L), match("Cardio", 10));
+    }
+
+    @Test
+    @DisplayName("Only trainers free at the requested time are available")
+    void availabilityFilterShouldUseSchedule() {
+        TrainingSchedule schedule = storage.trainingSchedule();
+        LocalDateTime start = LocalDateTime.parse("2024-01-15T10:30");
+
+        List<Trainer> available = storage.matchTrainers("Cardio",
+                trainerId -> schedule.isTrainerFree(trainerId, start, 30), 10);
+
+        assertEquals(List.of(2L, 3L), available.stream().map(Trainer::getUserId).toList());
+        assertTrue(schedule.isTrainerFree(1L, LocalDateTime.parse("2024-01-15T11:00"), 30));
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Training;
+import com.example.gym.model.TrainingType;
+import com.example.gym.query.TrainingStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.gym.storage.StorageFixtures.training;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingAggregatesTest {
+
+    private InMemoryStorage storage;
+    private TrainingAggregates aggregates;
+    private TrainingType cardio;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage();
+        aggregates = storage.trainingAggregates();
+        cardio = TrainingType.builder().trainingTypeId(1L).trainingTypeName("Cardio").build();
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, "2024-01-15", 60));
+        storage.put(Training.class, 2L, training(2L, 10L, 20L, "2024-02-03", 30));
+        storage.put(Training.class, 3L, training(3L, 11L, 20L, "2024-02-03", 45));
+    }
+
+    private static long day(String date) {
+        return LocalDate.parse(date).toEpochDay();
+    }
+
+    @Test
+    @DisplayName("Totals per trainee, trainer, type and day follow every put")
+    void putsShouldUpdateAllDimensions() {
+        assertEquals(new TrainingStats(2, 90), aggregates.forTrainee(10L));
+        assertEquals(new TrainingStats(3, 135), aggregates.forTrainer(20L));
+        assertEquals(new TrainingStats(3, 135), aggregates.forType(1L));
+        assertEquals(new TrainingStats(2, 75), aggregates.forDays(day("2024-02-01"), day("2024-02-29")));
+        assertEquals(new TrainingStats(1, 30),
+                aggregates.forTrainee(10L, day("2024-02-01"), day("2024-02-29")));
+        assertEquals(TrainingStats.EMPTY, aggregates.forTrainee(99L));
+        assertEquals(45.0, aggregates.forTrainer(20L).averageDuration());
+    }
+
+    @Test
+    @DisplayName("Overwriting a training, even one mutated in place, moves its contribution")
+    void overwritesShouldReplaceContribution() {
+        Training stored = storage.<Training>get(Training.class, 1L).orElseThrow();
+        stored.setTraineeId(11L);
+        stored.setTrainingDuration(90);
+        storage.put(Training.class, 1L, stored);
+
+        assertEquals(new TrainingStats(1, 30), aggregates.forTrainee(10L));
+        assertEquals(new TrainingStats(2, 135), aggregates.forTrainee(11L));
+        assertEquals(new TrainingStats(3, 165), aggregates.forTrainer(20L));
+    }
+
+    @Test
+    @DisplayName("Deletes and batches keep totals consistent")
+    void deletesAndBatchesShouldUpdateTotals() {
+        storage.delete(Training.class, 1L);
+        storage.putAll(Training.class, Map.of(4L, training(4L, 10L, 20L, "2024-03-01", 15)));
+        storage.deleteAll(Training.class, List.of(3L, 99L));
+
+        assertEquals(new TrainingStats(2, 45), aggregates.forTrainee(10L));
+        assertEquals(TrainingStats.EMPTY, aggregates.forTrainee(11L));
+        assertEquals(new TrainingStats(2, 45), aggregates.forType(1L));
+        assertEquals(TrainingStats.EMPTY, aggregates.forDays(day("2024-01-15"), day("2024-01-15")));
+    }
+}
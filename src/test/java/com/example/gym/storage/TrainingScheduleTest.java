@@ -0,0 +1,161 @@
+package com.example.gym.storage;
+
+import com.example.gym.exception.ScheduleConflictException;
+import com.example.gym.model.Training;
+import com.example.gym.query.TimeSlot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.gym.storage.StorageFixtures.training;
+import static org.junit.jupiter.api.Assertions.*;
+
+class TrainingScheduleTest {
+
+    private static final String DAY = "2024-01-15";
+
+    private InMemoryStorage storage;
+    private TrainingSchedule schedule;
+
+    @BeforeEach
+    void setUp() {
+        storage = new InMemoryStorage();
+        schedule = storage.trainingSchedule();
+        storage.putScheduled(1L, training(1L, 10L, 20L, DAY, "09:00", 60));
+        storage.putScheduled(2L, training(2L, 11L, 20L, DAY, "12:00", 90));
+    }
+
+    private static LocalDateTime at(String time) {
+        return LocalDateTime.parse(DAY + "T" + time);
+    }
+
+    @Test
+    @DisplayName("Overlaps with the trainer's or the trainee's bookings are conflicts")
+    void conflictsShouldCoverTrainerAndTrainee() {
+        assertEquals(List.of(1L), schedule.conflicts(training(3L, 12L, 20L, DAY, "09:30", 30)));
+        assertEquals(List.of(1L), schedule.conflicts(training(3L, 10L, 21L, DAY, "08:00", 300)));
+        assertEquals(List.of(1L, 2L), schedule.conflicts(training(3L, 12L, 20L, DAY, "08:00", 300)));
+        assertEquals(List.of(), schedule.conflicts(training(3L, 12L, 20L, DAY, "10:00", 120)));
+        assertEquals(List.of(), schedule.conflicts(training(3L, 12L, 21L, DAY, "09:00", 60)));
+    }
+
+    @Test
+    @DisplayName("A long booking is found even when it starts well before the checked slot")
+    void conflictsShouldFindLongEarlierBookings() {
+        storage.putScheduled(3L, training(3L, 12L, 21L, DAY, "06:00", 480));
+        storage.putScheduled(4L, training(4L, 13L, 21L, DAY, "14:00", 15));
+
+        assertEquals(List.of(3L), schedule.conflicts(training(5L, 14L, 21L, DAY, "13:30", 15)));
+    }
+
+    @Test
+    @DisplayName("Freeing one of two equally long bookings still finds the other")
+    void conflictsShouldFollowRemovedLongBookings() {
+        storage.put(Training.class, 3L, training(3L, 12L, 21L, DAY, "06:00", 480));
+        storage.put(Training.class, 4L, training(4L, 13L, 21L, DAY, "05:00", 480));
+        storage.put(Training.class, 5L, training(5L, 14L, 21L, DAY, "15:00", 30));
+        storage.delete(Training.class, 4L);
+
+        assertEquals(List.of(3L), schedule.conflicts(training(6L, 15L, 21L, DAY, "13:30", 15)));
+        storage.delete(Training.class, 3L);
+        assertEquals(List.of(), schedule.conflicts(training(6L, 15L, 21L, DAY, "13:30", 15)));
+        assertEquals(List.of(5L), schedule.conflicts(training(6L, 15L, 21L, DAY, "14:45", 30)));
+    }
+
+    @Test
+    @DisplayName("Scheduled puts reject overlaps but allow rebooking the same training")
+    void putScheduledShouldRejectOverlaps() {
+        ScheduleConflictException exception = assertThrows(ScheduleConflictException.class,
+                () -> storage.putScheduled(3L, training(3L, 10L, 21L, DAY, "09:45", 30)));
+
+        assertTrue(exception.getMessage().contains("[1]"));
+        assertTrue(storage.get(Training.class, 3L).isEmpty());
+        assertDoesNotThrow(() -> storage.putScheduled(1L, training(1L, 10L, 20L, DAY, "09:15", 60)));
+    }
+
+    @Test
+    @DisplayName("A training without a trainer or trainee is checked against the other calendar only")
+    void conflictsShouldAllowMissingOwners() {
+        Training noTrainer = training(3L, 10L, 21L, DAY, "09:30", 30);
+        noTrainer.setTrainerId(null);
+        Training noTrainee = training(4L, 12L, 20L, DAY, "12:30", 30);
+        noTrainee.setTraineeId(null);
+
+        assertEquals(List.of(1L), schedule.conflicts(noTrainer));
+        assertEquals(List.of(2L), schedule.conflicts(noTrainee));
+        assertThrows(ScheduleConflictException.class, () -> storage.putScheduled(3L, noTrainer));
+    }
+
+    @Test
+    @DisplayName("Scheduled batches reject overlaps with bookings and within the batch, storing nothing")
+    void putAllScheduledShouldRejectOverlaps() {
+        Map<Long, Training> overlapsBooked = new LinkedHashMap<>();
+        overlapsBooked.put(3L, training(3L, 12L, 21L, DAY, "15:00", 30));
+        overlapsBooked.put(4L, training(4L, 10L, 22L, DAY, "09:30", 30));
+        Map<Long, Training> overlapsBatch = new LinkedHashMap<>();
+        overlapsBatch.put(3L, training(3L, 12L, 21L, DAY, "15:00", 60));
+        overlapsBatch.put(4L, training(4L, 13L, 21L, DAY, "15:30", 60));
+
+        ScheduleConflictException booked = assertThrows(ScheduleConflictException.class,
+                () -> storage.putAllScheduled(overlapsBooked));
+        ScheduleConflictException batch = assertThrows(ScheduleConflictException.class,
+                () -> storage.putAllScheduled(overlapsBatch));
+
+        assertTrue(booked.getMessage().contains("id: 4") && booked.getMessage().contains("[1]"));
+        assertTrue(batch.getMessage().contains("id: 4") && batch.getMessage().contains("[3]"));
+        assertTrue(storage.get(Training.class, 3L).isEmpty());
+        assertEquals(List.of(), schedule.conflicts(training(5L, 12L, 21L, DAY, "15:00", 60)));
+    }
+
+    @Test
+    @DisplayName("A scheduled batch may move booked trainings into each other's old slots")
+    void putAllScheduledShouldCheckReplacedTrainingsInTheirNewVersion() {
+        Map<Long, Training> swap = new LinkedHashMap<>();
+        swap.put(1L, training(1L, 10L, 20L, DAY, "12:00", 60));
+        swap.put(2L, training(2L, 11L, 20L, DAY, "09:00", 60));
+
+        storage.putAllScheduled(swap);
+
+        assertEquals(List.of(2L), schedule.conflicts(training(3L, 12L, 20L, DAY, "09:30", 15)));
+        assertEquals(List.of(1L), schedule.conflicts(training(3L, 12L, 20L, DAY, "12:30", 15)));
+    }
+
+    @Test
+    @DisplayName("Trainings without a start time are never checked")
+    void untimedTrainingsShouldNotConflict() {
+        Training untimed = training(3L, 10L, 20L, null, 60);
+
+        assertEquals(List.of(), schedule.conflicts(untimed));
+        assertDoesNotThrow(() -> storage.putScheduled(3L, untimed));
+    }
+
+    @Test
+    @DisplayName("Free slots are the gaps between bookings that are long enough")
+    void freeSlotsShouldListGaps() {
+        List<TimeSlot> free = schedule.trainerFreeSlots(20L, at("08:00"), at("18:00"), 60);
+
+        assertEquals(List.of(
+                new TimeSlot(at("08:00"), at("09:00")),
+                new TimeSlot(at("10:00"), at("12:00")),
+                new TimeSlot(at("13:30"), at("18:00"))), free);
+        assertEquals(List.of(new TimeSlot(at("10:00"), at("12:00"))),
+                schedule.trainerFreeSlots(20L, at("09:30"), at("12:30"), 90));
+    }
+
+    @Test
+    @DisplayName("Updates and deletes move or free the booked slot")
+    void writesShouldMoveSlots() {
+        storage.put(Training.class, 1L, training(1L, 10L, 20L, DAY, "15:00", 60));
+        storage.delete(Training.class, 2L);
+
+        assertEquals(List.of(), schedule.conflicts(training(3L, 12L, 20L, DAY, "09:00", 240)));
+        assertEquals(List.of(1L), schedule.conflicts(training(3L, 12L, 20L, DAY, "15:30", 60)));
+        assertEquals(List.of(new TimeSlot(at("08:00"), at("15:00"))),
+                schedule.trainerFreeSlots(20L, at("08:00"), at("16:00"), 30));
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.gym.storage;
+
+import com.example.gym.model.Trainee;
+import com.example.gym.model.Training;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static com.example.gym.storage.StorageFixtures.trainee;
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+
+    @TempDir
+    Path directory;
+
+    private WriteAheadLog wal;
+    private InMemoryStorage live;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        live = new InMemoryStorage();
+        wal = new WriteAheadLog(live, directory.toString(), 1024);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Replay applies logged puts and deletes in order")
+    void replayShouldApplyPutsAndDeletes() throws Exception {
+        put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        put(Trainee.class, 2L, trainee(2L, "Jane.Doe"));
+        wal.applyAndLogDelete(Trainee.class, 1L, () -> live.delete(Trainee.class, 1L));
+        closeLog();
+        InMemoryStorage storage = new InMemoryStorage();
+
+        int applied = WriteAheadLog.replay(directory, 0, storage);
+
+        assertEquals(3, applied);
+        assertTrue(storage.get(Trainee.class, 1L).isEmpty());
+        assertEquals("Jane.Doe", storage.get(Trainee.class, 2L).orElseThrow().getUsername());
+        assertEquals(3L, storage.generateId(Trainee.class));
+    }
+
+    @Test
+    @DisplayName("Batch puts and deletes replay like single records")
+    void replayShouldApplyBatches() throws Exception {
+        Map<Long, Trainee> batch = new LinkedHashMap<>();
+        batch.put(1L, trainee(1L, "John.Doe"));
+        batch.put(2L, trainee(2L, "Jane.Doe"));
+        batch.put(3L, trainee(3L, "Ann.Lee"));
+        wal.applyAndLogPutAll(Trainee.class, batch, () -> live.putAll(Trainee.class, batch));
+        wal.applyAndLogDeleteAll(Trainee.class, List.of(1L, 3L), () -> live.deleteAll(Trainee.class, List.of(1L, 3L)));
+        closeLog();
+        InMemoryStorage storage = new InMemoryStorage();
+
+        int applied = WriteAheadLog.replay(directory, 0, storage);
+
+        assertEquals(5, applied);
+        assertEquals(1, storage.size(Trainee.class));
+        assertEquals("Jane.Doe", storage.get(Trainee.class, 2L).orElseThrow().getUsername());
+    }
+
+    @Test
+    @DisplayName("Replay skips records below the snapshot position")
+    void replayShouldSkipRecordsBeforeLsn() throws Exception {
+        put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        long boundary = wal.roll();
+        put(Trainee.class, 2L, trainee(2L, "Jane.Doe"));
+        closeLog();
+        InMemoryStorage storage = new InMemoryStorage();
+
+        WriteAheadLog.replay(directory, boundary, storage);
+
+        assertTrue(storage.get(Trainee.class, 1L).isEmpty());
+        assertTrue(storage.get(Trainee.class, 2L).isPresent());
+    }
+
+    @Test
+    @DisplayName("DeleteSegmentsBefore drops segments covered by a snapshot")
+    void deleteSegmentsBeforeShouldDropOldSegments() throws Exception {
+        put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        long boundary = wal.roll();
+
+        wal.deleteSegmentsBefore(boundary);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(1, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("Replay stops at a torn trailing record")
+    void replayShouldIgnoreTornTail() throws Exception {
+        put(Training.class, 1L, Training.builder().trainingId(1L).trainingName("Yoga").build());
+        closeLog();
+        try (Stream<Path> files = Files.list(directory)) {
+            Path segment = files.findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        }
+        InMemoryStorage storage = new InMemoryStorage();
+
+        int applied = WriteAheadLog.replay(directory, 0, storage);
+
+        assertEquals(1, applied);
+        assertEquals("Yoga", storage.get(Training.class, 1L).orElseThrow().getTrainingName());
+    }
+
+    @Test
+    @DisplayName("Reopened log continues after the last logged record")
+    void reopenShouldContinueSequence() throws Exception {
+        put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        closeLog();
+        wal = new WriteAheadLog(live, directory.toString(), 1024);
+        put(Trainee.class, 2L, trainee(2L, "Jane.Doe"));
+        closeLog();
+
+        assertEquals(2, WriteAheadLog.replay(directory, 0, new InMemoryStorage()));
+    }
+
+    @Test
+    @DisplayName("Concurrent writers are all durable once they return")
+    void concurrentWritesShouldAllBeLogged() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (long id = 1; id <= 400; id++) {
+            long trainingId = id;
+            executor.submit(() -> put(Training.class, trainingId, Training.builder().trainingId(trainingId).build()));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        closeLog();
+        InMemoryStorage storage = new InMemoryStorage();
+
+        assertEquals(400, WriteAheadLog.replay(directory, 0, storage));
+        assertEquals(400, storage.size());
+    }
+
+    @Test
+    @DisplayName("Concurrent writers of one id replay to the state they left in memory")
+    void concurrentWritesOfOneIdShouldReplayInApplyOrder() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 400; i++) {
+            boolean delete = i % 3 == 0;
+            String name = "Session " + i;
+            executor.submit(() -> {
+                if (delete) {
+                    wal.applyAndLogDelete(Training.class, 1L, () -> live.delete(Training.class, 1L));
+                } else {
+                    Training training = Training.builder().trainingId(1L).trainingName(name).build();
+                    wal.applyAndLogPut(Training.class, 1L, () -> {
+                        live.put(Training.class, 1L, training);
+                        return training;
+                    });
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        closeLog();
+        InMemoryStorage replayed = new InMemoryStorage();
+
+        WriteAheadLog.replay(directory, 0, replayed);
+
+        assertEquals(live.get(Training.class, 1L), replayed.get(Training.class, 1L));
+    }
+
+    @Test
+    @DisplayName("Nothing is logged when the storage change fails")
+    void applyAndLogShouldSkipFailedChanges() throws Exception {
+        assertThrows(IllegalStateException.class, () -> wal.applyAndLogPut(Trainee.class, 1L, () -> {
+            throw new IllegalStateException("rejected");
+        }));
+        closeLog();
+
+        assertEquals(0, WriteAheadLog.replay(directory, 0, new InMemoryStorage()));
+    }
+
+    @Test
+    @DisplayName("After a write failure, writers and close fail fast instead of waiting")
+    void writeFailureShouldStopTheLog() throws Exception {
+        ((FileChannel) ReflectionTestUtils.getField(wal, "channel")).close();
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            assertThrows(UncheckedIOException.class, () -> put(Trainee.class, 1L, trainee(1L, "John.Doe")));
+            assertThrows(UncheckedIOException.class, () -> put(Trainee.class, 2L, trainee(2L, "Jane.Doe")));
+            assertThrows(UncheckedIOException.class, wal::roll);
+            closeLog();
+        });
+    }
+
+    @Test
+    @DisplayName("Changes that cannot be logged are undone in storage")
+    void failedLogWritesShouldUndoChanges() throws Exception {
+        put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        ((FileChannel) ReflectionTestUtils.getField(wal, "channel")).close();
+
+        assertThrows(UncheckedIOException.class, () -> put(Trainee.class, 1L, trainee(1L, "John.Smith")));
+        assertThrows(UncheckedIOException.class, () -> put(Trainee.class, 2L, trainee(2L, "Jane.Doe")));
+        assertThrows(UncheckedIOException.class,
+                () -> wal.applyAndLogDelete(Trainee.class, 1L, () -> live.delete(Trainee.class, 1L)));
+
+        assertEquals("John.Doe", live.get(Trainee.class, 1L).orElseThrow().getUsername());
+        assertTrue(live.get(Trainee.class, 2L).isEmpty());
+        assertFalse(live.existsByUsername("Jane.Doe"));
+        closeLog();
+    }
+
+    @Test
+    @DisplayName("Segments record their codec version and replay rejects unknown ones")
+    void replayShouldCheckCodecVersion() throws Exception {
+        put(Trainee.class, 1L, trainee(1L, "John.Doe"));
+        closeLog();
+        try (Stream<Path> files = Files.list(directory);
+             FileChannel segment = FileChannel.open(files.findFirst().orElseThrow(), StandardOpenOption.WRITE)) {
+            segment.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, EntityCodec.VERSION + 1), Integer.BYTES);
+        }
+
+        assertThrows(IOException.class, () -> WriteAheadLog.replay(directory, 0, new InMemoryStorage()));
+    }
+
+    private <T> void put(Class<T> entityClass, long id, T entity) {
+        wal.applyAndLogPut(entityClass, id, () -> {
+            live.put(entityClass, id, entity);
+            return entity;
+        });
+    }
+
+    private void closeLog() throws InterruptedException {
+        wal.close();
+        wal = null;
+    }
+}
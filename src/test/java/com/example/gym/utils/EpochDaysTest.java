@@ -0,0 +1,32 @@
+package com.example.gym.utils;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EpochDaysTest {
+
+    @Test
+    @DisplayName("Should round-trip ISO dates through epoch days")
+    void parseAndFormatShouldRoundTrip() {
+        int epochDay = EpochDays.parse("2024-01-15");
+
+        assertEquals(19737, epochDay);
+        assertEquals("2024-01-15", EpochDays.format(epochDay));
+    }
+
+    @Test
+    @DisplayName("Should map null dates to NONE and back")
+    void nullDateShouldMapToNone() {
+        assertEquals(EpochDays.NONE, EpochDays.parse(null));
+        assertNull(EpochDays.format(EpochDays.NONE));
+        assertNull(EpochDays.boxed(EpochDays.NONE));
+    }
+
+    @Test
+    @DisplayName("Should order epoch days chronologically")
+    void epochDaysShouldCompareChronologically() {
+        assertTrue(EpochDays.parse("2023-12-31") < EpochDays.parse("2024-01-01"));
+    }
+}
@@ -4,7 +4,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -48,6 +55,44 @@ class UserCredentialsGeneratorTest {
         assertEquals("Jane.Smith3", result);
     }
 
+    @Test
+    @DisplayName("Should not probe suffixes already handed out")
+    void generateUsernameShouldResumeFromLastSuffix() {
+        AtomicInteger probes = new AtomicInteger();
+        Predicate<String> usernameExists = username -> {
+            probes.incrementAndGet();
+            return false;
+        };
+
+        generator.generateUsername("Anna", "Ivanova", usernameExists);
+        generator.generateUsername("Anna", "Ivanova", usernameExists);
+        String third = generator.generateUsername("Anna", "Ivanova", usernameExists);
+
+        assertEquals("Anna.Ivanova2", third);
+        assertEquals(3, probes.get());
+    }
+
+    @Test
+    @DisplayName("Should hand out distinct usernames to concurrent callers")
+    void generateUsernameShouldBeUniqueUnderConcurrency() throws InterruptedException {
+        Set<String> reserved = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < perThread; j++) {
+                    generator.generateUsername("John", "Smith", username -> !reserved.add(username));
+                }
+            });
+        }
+        executor.shutdown();
+
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(threads * perThread, reserved.size());
+    }
+
     @Test
     @DisplayName("Should generate password with 10 characters")
     void generatePasswordShouldReturn10Characters() {
@@ -72,4 +117,20 @@ class UserCredentialsGeneratorTest {
 
         assertNotEquals(password1, password2);
     }
+
+    @Test
+    @DisplayName("Should generate the requested number of distinct valid passwords in bulk")
+    void generatePasswordsShouldReturnRequestedCount() {
+        List<String> passwords = generator.generatePasswords(1000);
+
+        assertEquals(1000, passwords.size());
+        assertEquals(1000, new HashSet<>(passwords).size());
+        assertTrue(passwords.stream().allMatch(p -> p.matches("[A-Za-z0-9]{10}")));
+    }
+
+    @Test
+    @DisplayName("Should reject a negative bulk password count")
+    void generatePasswordsShouldRejectNegativeCount() {
+        assertThrows(IllegalArgumentException.class, () -> generator.generatePasswords(-1));
+    }
 }